@@ -0,0 +1,90 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Futures;
+import com.typesafe.config.ConfigFactory;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark共用的ActorSystem、缓存配置与数据源
+ * Created by arksea on 2019/6/3.
+ */
+final class BenchSupport {
+    static final long TIMEOUT = 10000;
+    static final FiniteDuration AWAIT = Duration.create(TIMEOUT, TimeUnit.MILLISECONDS);
+
+    private BenchSupport() {}
+
+    static ActorSystem createSystem(String name) {
+        return ActorSystem.create(name, ConfigFactory.parseString(
+            "akka.loglevel = WARNING\n" +
+            "akka.actor.provider = local\n").withFallback(ConfigFactory.load()));
+    }
+
+    static void terminate(ActorSystem system) throws Exception {
+        Await.result(system.terminate(), AWAIT);
+    }
+
+    static <T> T await(Future<T> f) throws Exception {
+        return Await.result(f, AWAIT);
+    }
+
+    static String key(int i) {
+        return "key-" + i;
+    }
+
+    /**
+     * 可在运行时调整的缓存配置，未设置的项与ICacheConfig默认值相同
+     */
+    static class Config implements ICacheConfig<String> {
+        private final String cacheName;
+        volatile long idleTimeout;
+        volatile long idleCleanPeriod;
+        volatile long maximumSize;
+
+        Config(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        @Override
+        public String getCacheName() {
+            return cacheName;
+        }
+        @Override
+        public long getIdleTimeout(String key) {
+            return idleTimeout;
+        }
+        @Override
+        public long getIdleCleanPeriod() {
+            return idleCleanPeriod;
+        }
+        @Override
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+    }
+
+    /**
+     * 立即返回固定值的数据源，用于测量缓存自身的开销
+     */
+    static class ConstSource<TData> implements IDataSource<String, TData> {
+        private final TData value;
+        private final long ttl;
+
+        ConstSource(TData value, long ttl) {
+            this.value = value;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Future<TimedData<TData>> request(ActorRef cacheActor, String cacheName, String key) {
+            return Futures.successful(new TimedData<>(System.currentTimeMillis() + ttl, value));
+        }
+    }
+}
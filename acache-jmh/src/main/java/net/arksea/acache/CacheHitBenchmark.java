@@ -0,0 +1,95 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.concurrent.Future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命中路径：CacheAsker经Actor mailbox读取与DirectCacheAsker在调用者线程直接读取的吞吐量与延迟
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class CacheHitBenchmark {
+    static final int KEYS = 1024;
+    static final int PIPELINE = 64;
+
+    private ActorSystem system;
+    private CacheAsker<String, String> asker;
+    private DirectCacheAsker<String, String> directAsker;
+    private final String[] keys = new String[KEYS];
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        String nextKey(CacheHitBenchmark b) {
+            return b.keys[next++ & (KEYS - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        system = BenchSupport.createSystem("CacheHitBenchmark");
+        BenchSupport.Config config = new BenchSupport.Config("hitCache");
+        CacheStateRegistry<String, String> registry = new CacheStateRegistry<>();
+        ActorRef ref = system.actorOf(CacheActor.props(config,
+            new BenchSupport.ConstSource<>("value", 3600_000L), new IHitStat<String>() {}, registry), "hitCache");
+        asker = new CacheAsker<>(system.actorSelection(ref.path()), system.dispatcher(), BenchSupport.TIMEOUT);
+        directAsker = new DirectCacheAsker<>(system.actorSelection(ref.path()), system.dispatcher(), BenchSupport.TIMEOUT, registry);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = BenchSupport.key(i);
+            asker.syncGet(keys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    @Benchmark
+    public String askHit(Cursor cursor) throws Exception {
+        return asker.syncGet(cursor.nextKey(this));
+    }
+
+    //异步连续发出多个请求后再等待，测量mailbox的吞吐量而不是单次往返延迟
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public List<DataResult<String, String>> askHitPipelined(Cursor cursor) throws Exception {
+        List<Future<DataResult<String, String>>> futures = new ArrayList<>(PIPELINE);
+        for (int i = 0; i < PIPELINE; i++) {
+            futures.add(asker.ask(cursor.nextKey(this)));
+        }
+        List<DataResult<String, String>> results = new ArrayList<>(PIPELINE);
+        for (Future<DataResult<String, String>> f : futures) {
+            results.add(BenchSupport.await(f));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public String directHit(Cursor cursor) throws Exception {
+        return directAsker.syncGet(cursor.nextKey(this));
+    }
+}
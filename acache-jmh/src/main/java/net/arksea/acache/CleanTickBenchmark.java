@@ -0,0 +1,104 @@
+package net.arksea.acache;
+
+import akka.actor.ActorSystem;
+import akka.testkit.TestActorRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存中有100万项且全部到期时，一次CleanTick的耗时：
+ * remove为全部闲置超时被删除，reschedule为期间都被访问过、重新登记到时间轮；
+ * 每次迭代前重新装载缓存，CacheActor用TestActorRef创建，在当前线程同步执行
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class CleanTickBenchmark {
+    static final int ENTRIES = 1_000_000;
+    //时间轮第一层每格约1秒，等待超过两格以保证所有项都已到期
+    static final long WAIT_FOR_DUE = 2100;
+
+    @Param({"remove", "reschedule"})
+    String mode;
+
+    private ActorSystem system;
+    private List<String> keys;
+    private BenchSupport.Config config;
+    private TestActorRef<CacheActor<String, String>> ref;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = BenchSupport.createSystem("CleanTickBenchmark");
+        keys = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            keys.add(BenchSupport.key(i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() throws InterruptedException {
+        config = new BenchSupport.Config("cleanCache") {
+            @Override
+            public List<String> getInitKeys() {
+                return keys;
+            }
+        };
+        config.idleTimeout = 1;
+        config.idleCleanPeriod = 3600_000L; //定时的CleanTick不会在迭代期间触发
+        IDataSource<String, String> source = new BenchSupport.ConstSource<String>("value", 3600_000L) {
+            @Override
+            public Map<String, TimedData<String>> initCache(List<String> list) {
+                long time = System.currentTimeMillis() + 3600_000L;
+                Map<String, TimedData<String>> map = new HashMap<>(list.size() * 2);
+                for (String k : list) {
+                    map.put(k, new TimedData<>(time, "value"));
+                }
+                return map;
+            }
+        };
+        ref = TestActorRef.create(system, CacheActor.props(config, source));
+        Thread.sleep(WAIT_FOR_DUE);
+        if ("reschedule".equals(mode)) {
+            config.idleTimeout = 3600_000L;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        system.stop(ref);
+        ref = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    @Benchmark
+    public int cleanTick() {
+        CacheActor<String, String> actor = ref.underlyingActor();
+        actor.handleCleanTick();
+        return actor.state.cacheMap.size();
+    }
+}
@@ -0,0 +1,69 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ListCacheActor在大列表上按页读取（GetRange）的延迟，页的起始位置在整个列表中轮转
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class GetRangeBenchmark {
+    static final String KEY = "list";
+
+    @Param({"1000", "100000", "1000000"})
+    int listSize;
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    private ActorSystem system;
+    private CacheAsker<String, List> asker;
+    private int start;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        system = BenchSupport.createSystem("GetRangeBenchmark");
+        BenchSupport.Config config = new BenchSupport.Config("listCache");
+        List<Integer> list = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            list.add(i);
+        }
+        ActorRef ref = system.actorOf(ListCacheActor.props(config, new BenchSupport.ConstSource<List>(list, 3600_000L)), "listCache");
+        asker = new CacheAsker<>(system.actorSelection(ref.path()), system.dispatcher(), BenchSupport.TIMEOUT);
+        BenchSupport.await(asker.ask(new GetRange<>(KEY, 0, 1)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    @Benchmark
+    public DataResult<String, List> getRange() throws Exception {
+        start = (start + 7919 * pageSize) % listSize;
+        return BenchSupport.await(asker.ask(new GetRange<>(KEY, start, pageSize)));
+    }
+}
@@ -0,0 +1,66 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 未命中路径：每次请求新的Key，数据源立即返回，测量CacheActor请求数据源、保存结果与淘汰的开销；
+ * 缓存条数有上限，运行期间内存占用保持稳定
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MissPathBenchmark {
+    static final long MAXIMUM_SIZE = 100_000;
+    private static final AtomicInteger threadSeq = new AtomicInteger();
+
+    private ActorSystem system;
+    private CacheAsker<String, String> asker;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final String prefix = "t" + threadSeq.incrementAndGet() + "-";
+        long next;
+        String nextKey() {
+            return prefix + next++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = BenchSupport.createSystem("MissPathBenchmark");
+        BenchSupport.Config config = new BenchSupport.Config("missCache");
+        config.maximumSize = MAXIMUM_SIZE;
+        ActorRef ref = system.actorOf(CacheActor.props(config, new BenchSupport.ConstSource<>("value", 3600_000L)), "missCache");
+        asker = new CacheAsker<>(system.actorSelection(ref.path()), system.dispatcher(), BenchSupport.TIMEOUT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    @Benchmark
+    public String miss(Cursor cursor) throws Exception {
+        return asker.syncGet(cursor.nextKey());
+    }
+}
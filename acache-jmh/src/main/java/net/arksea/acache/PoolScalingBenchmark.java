@@ -0,0 +1,91 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.routing.ConsistentHashingPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个CacheActor与ConsistentHashingPool在不同调用线程数下的命中吞吐量，
+ * poolSize为1时使用单个CacheActor（不经过Router）
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class PoolScalingBenchmark {
+    static final int KEYS = 4096;
+
+    @Param({"1", "4", "8"})
+    int poolSize;
+
+    private ActorSystem system;
+    private CacheAsker<String, String> asker;
+    private final String[] keys = new String[KEYS];
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) (Thread.currentThread().getId() * 997);
+        String nextKey(PoolScalingBenchmark b) {
+            return b.keys[next++ & (KEYS - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        system = BenchSupport.createSystem("PoolScalingBenchmark");
+        BenchSupport.Config config = new BenchSupport.Config("poolCache");
+        Props props = CacheActor.props(config, new BenchSupport.ConstSource<>("value", 3600_000L));
+        if (poolSize > 1) {
+            props = new ConsistentHashingPool(poolSize).props(props);
+        }
+        ActorRef ref = system.actorOf(props, "poolCache");
+        asker = new CacheAsker<>(system.actorSelection(ref.path()), system.dispatcher(), BenchSupport.TIMEOUT);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = BenchSupport.key(i);
+            asker.syncGet(keys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String hit1Thread(Cursor cursor) throws Exception {
+        return asker.syncGet(cursor.nextKey(this));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String hit4Threads(Cursor cursor) throws Exception {
+        return asker.syncGet(cursor.nextKey(this));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String hit16Threads(Cursor cursor) throws Exception {
+        return asker.syncGet(cursor.nextKey(this));
+    }
+}
@@ -0,0 +1,131 @@
+package net.arksea.acache;
+
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataResult的序列化开销：Java序列化与CacheMessageSerializer的对比
+ * Created by arksea on 2019/6/3.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"string", "list100", "chunkedList10000"})
+    String payload;
+
+    private DataResult<String, Object> result;
+    private byte[] bytes;
+    private ActorSystem system;
+    private CacheMessageSerializer serializer;
+    private String manifest;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        system = BenchSupport.createSystem("SerializationBenchmark");
+        serializer = new CacheMessageSerializer((ExtendedActorSystem) system);
+        Object data;
+        switch (payload) {
+            case "string":
+                data = "value-0123456789";
+                break;
+            case "list100":
+                data = intList(100);
+                break;
+            default:
+                data = ChunkedList.copyOf(intList(10000));
+                break;
+        }
+        result = new DataResult<>("benchCache", "key-1", System.currentTimeMillis(), data);
+        bytes = serialize(result);
+        manifest = serializer.manifest(result);
+        binaryBytes = serializer.toBinary(result);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchSupport.terminate(system);
+    }
+
+    private static List<Integer> intList(int size) {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    private static byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(obj);
+        }
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        return serialize(result);
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return serializer.toBinary(result);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() throws NotSerializableException {
+        return serializer.fromBinary(binaryBytes, manifest);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object javaRoundTrip() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(result)))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object binaryRoundTrip() throws NotSerializableException {
+        return serializer.fromBinary(serializer.toBinary(result), manifest);
+    }
+}
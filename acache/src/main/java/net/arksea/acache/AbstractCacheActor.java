@@ -1,22 +1,40 @@
 package net.arksea.acache;
 
 import akka.actor.*;
+import akka.cluster.pubsub.DistributedPubSub;
+import akka.cluster.pubsub.DistributedPubSubMediator;
+import akka.dispatch.OnComplete;
 import akka.dispatch.OnFailure;
 import akka.dispatch.OnSuccess;
 import akka.japi.pf.ReceiveBuilder;
+import akka.japi.Util;
 import akka.pattern.Patterns;
+import akka.routing.GetRoutees;
+import akka.routing.Routee;
+import akka.routing.Routees;
 import net.arksea.dsf.service.ServiceRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static akka.japi.Util.classTag;
 
@@ -26,11 +44,31 @@ import static akka.japi.Util.classTag;
  */
 public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
     private static final Logger log = LogManager.getLogger(AbstractCacheActor.class);
+    private static final long FINAL_SNAPSHOT_WAIT = 60000; //停止时等待正在写的快照完成的最长时间
     protected final CacheActorState<TKey,TData> state;
     private static Random random = new Random(System.currentTimeMillis());
     protected final DoNothingResponser<TKey> doNothing = new DoNothingResponser<>();
     private Cancellable cleanTickTimer;
     private Cancellable updateTickTimer;
+    private Cancellable hotKeyTickTimer;
+    //正在向数据源请求数据的Key，同一Key的并发请求合并为一次数据源请求，结果返回时统一通知所有等待者
+    private final Map<TKey, PendingRequest> pendingRequests = new HashMap<>();
+    private final List<TKey> evictedKeys = new ArrayList<>();
+    //等待合并为批量请求的Key
+    private final Set<TKey> batchKeys = new LinkedHashSet<>();
+    private Cancellable batchTickTimer;
+    private Cancellable snapshotTickTimer;
+    //写快照的线程，避免大量数据的编码与文件IO阻塞CacheActor
+    private ExecutorService snapshotExecutor;
+    private boolean snapshotWriting;
+    //等待合并广播的失效Key
+    private ActorRef invalidationMediator;
+    private final Set<TKey> invalidationKeys = new LinkedHashSet<>();
+    private Cancellable invalidationTickTimer;
+    //订阅了数据更新的Actor（例如各节点的本地缓存）
+    private final Map<TKey, Set<ActorRef>> subscribers = new HashMap<>();
+    private final Map<ActorRef, Set<TKey>> subscriptions = new HashMap<>();
+    private final Consumer<TKey> directHitRecorder = this::onDirectHit;
     public AbstractCacheActor(CacheActorState<TKey,TData> state) {
         this.state = state;
     }
@@ -43,6 +81,7 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
 
     @Override
     public void preStart() {
+        loadSnapshot();
         initCache();
         //当idleCleanPeriod不为零时，启动过期缓存清除定时器
         long idleCleanPeriod = state.config.getIdleCleanPeriod();
@@ -61,18 +100,60 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
         //当autoUpdatePeriod不为零时，启动过期缓存自动更新定时器
         long autoUpdatePeriod = state.config.getAutoUpdatePeriod();
         if (autoUpdatePeriod > 0) {
-            //自动更新周期不少于60秒钟，且不多于60分钟
-            long period = Math.max(60000, autoUpdatePeriod);
-            period = Math.min(3600000, period) + random.nextInt(60000); //加随机数为了分散不同实例清除时间，调试日志也比较容易分辨
+            //每次检查只处理到期的Key，检查周期不少于1秒钟，且不多于60分钟
+            long period = Math.max(1000, autoUpdatePeriod);
+            period = Math.min(3600000, period);
+            long delay = period + random.nextInt(1000); //加随机数为了分散不同实例更新时间，调试日志也比较容易分辨
             updateTickTimer = context().system().scheduler().schedule(
-                Duration.create(period, TimeUnit.MILLISECONDS),
+                Duration.create(delay, TimeUnit.MILLISECONDS),
                 Duration.create(period, TimeUnit.MILLISECONDS),
                 self(),
                 new UpdateTick(),
                 context().dispatcher(),
                 self());
         }
+        if (state.config.getSnapshotDir() != null) {
+            long period = Math.max(60000, state.config.getSnapshotPeriod());
+            long delay = period + random.nextInt(60000);
+            snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "acache-snapshot-" + state.config.getCacheName());
+                t.setDaemon(true);
+                return t;
+            });
+            CacheSnapshot.FinalWrites.get(context().system());
+            snapshotTickTimer = context().system().scheduler().schedule(
+                Duration.create(delay, TimeUnit.MILLISECONDS),
+                Duration.create(period, TimeUnit.MILLISECONDS),
+                self(),
+                new SnapshotTick(),
+                context().dispatcher(),
+                self());
+        }
+        if (state.hotKeys != null) {
+            long period = Math.max(1000, state.config.getHotKeyReportPeriod());
+            hotKeyTickTimer = context().system().scheduler().schedule(
+                Duration.create(period, TimeUnit.MILLISECONDS),
+                Duration.create(period, TimeUnit.MILLISECONDS),
+                self(),
+                new HotKeyTick(),
+                context().dispatcher(),
+                self());
+        }
+        String topic = state.config.getInvalidationTopic();
+        if (topic != null) {
+            invalidationMediator = DistributedPubSub.lookup().get(context().system()).mediator();
+            invalidationMediator.tell(new DistributedPubSubMediator.Subscribe(topic, self()), self());
+        }
         state.dataSource.preStart(self(),state.config.getCacheName());
+        if (state.readBuffer != null) {
+            state.readBuffer.setOwner(self());
+        }
+        if (state.registry != null) {
+            state.registry.register(state);
+        }
+        if (state.compressor != null) {
+            ValueCompressor.Registry.get(context().system()).register(state.config.getCacheName(), state.compressor);
+        }
         log.debug("Start CacheActor {}", self().path().toStringWithoutAddress());
     }
 
@@ -80,6 +161,15 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
     public void postStop() throws Exception {
         super.postStop();
         log.debug("CacheActor {} stopped", self().path().toStringWithoutAddress());
+        if (state.registry != null) {
+            state.registry.unregister(state);
+        }
+        if (state.readBuffer != null) {
+            state.readBuffer.setOwner(null);
+        }
+        if (state.compressor != null) {
+            ValueCompressor.Registry.get(context().system()).unregister(state.config.getCacheName(), state.compressor);
+        }
         if (cleanTickTimer != null) {
             cleanTickTimer.cancel();
             cleanTickTimer = null;
@@ -88,6 +178,40 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
             updateTickTimer.cancel();
             updateTickTimer = null;
         }
+        if (batchTickTimer != null) {
+            batchTickTimer.cancel();
+            batchTickTimer = null;
+        }
+        if (hotKeyTickTimer != null) {
+            hotKeyTickTimer.cancel();
+            hotKeyTickTimer = null;
+        }
+        if (invalidationTickTimer != null) {
+            invalidationTickTimer.cancel();
+            invalidationTickTimer = null;
+        }
+        if (invalidationMediator != null) {
+            flushInvalidation();
+            invalidationMediator.tell(new DistributedPubSubMediator.Unsubscribe(state.config.getInvalidationTopic(), self()), self());
+        }
+        if (snapshotTickTimer != null) {
+            snapshotTickTimer.cancel();
+            snapshotTickTimer = null;
+        }
+        if (snapshotExecutor != null) {
+            //快照线程是守护线程，最后一次快照改由单独的非守护线程写，写完之前JVM不会因主线程结束而退出；
+            //JVM关闭时由CoordinatedShutdown通过FinalWrites等待写入完成
+            final ExecutorService executor = snapshotExecutor;
+            final File file = snapshotFile();
+            executor.shutdown();
+            snapshotExecutor = null;
+            CompletableFuture<Void> written = CompletableFuture.runAsync(() -> writeFinalSnapshot(executor, file), r -> {
+                Thread t = new Thread(r, "acache-final-snapshot-" + state.config.getCacheName());
+                t.setDaemon(false);
+                t.start();
+            });
+            CacheSnapshot.FinalWrites.get(context().system()).add(written);
+        }
     }
 
     @Override
@@ -99,17 +223,39 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
     }
 
     private void onReceiveServiceRequest(ServiceRequest req) {
-        log.trace("onReceive(), ServiceRequest.reqid={}", req.reqid);
+        if (log.isTraceEnabled()) {
+            log.trace("onReceive(), ServiceRequest.reqid={}", req.reqid);
+        }
+        drainReadBuffer();
         onReceiveCacheMsg(req.message, req);
     }
 
     private void onReceiveObject(Object o) {
+        drainReadBuffer();
         onReceiveCacheMsg(o, null);
     }
 
+    //处理消息前先补上DirectCacheAsker直接命中的访问记录
+    private void drainReadBuffer() {
+        if (state.readBuffer != null && !state.readBuffer.isEmpty()) {
+            state.readBuffer.drain(directHitRecorder);
+        }
+    }
+
+    private void onDirectHit(TKey key) {
+        if (state.evictionPolicy != null) {
+            state.evictionPolicy.onAccess(key);
+        }
+        if (state.hotKeys != null) {
+            state.hotKeys.onRequest(key);
+        }
+    }
+
     protected void onReceiveCacheMsg(Object o, ServiceRequest serviceRequest) {
         if (o instanceof GetData) {
             handleGetData((GetData<TKey,TData>)o, serviceRequest);
+        } else if (o instanceof GetMulti) {
+            handleGetMulti((GetMulti<TKey,TData>)o, serviceRequest);
         } else if (o instanceof DataResult) {
             handleDataResult((DataResult<TKey, TData>) o);
         } else if (o instanceof MarkDirty) {
@@ -120,6 +266,37 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
             handleCleanTick();
         } else if (o instanceof UpdateTick) {
             handleUpdateTick();
+        } else if (o instanceof DataPush) {
+            handleDataPush((DataPush<TKey, TData>) o);
+        } else if (o instanceof SubscribeData) {
+            handleSubscribe((SubscribeData<TKey, TData>) o);
+        } else if (o instanceof UnsubscribeData) {
+            handleUnsubscribe((UnsubscribeData<TKey, TData>) o);
+        } else if (o instanceof Terminated) {
+            handleSubscriberTerminated(((Terminated) o).actor());
+        } else if (o instanceof InvalidationBatch) {
+            handleInvalidationBatch((InvalidationBatch<TKey>) o);
+        } else if (o instanceof InvalidationTick) {
+            invalidationTickTimer = null;
+            flushInvalidation();
+        } else if (o instanceof DistributedPubSubMediator.SubscribeAck) {
+            log.debug("({})订阅缓存失效广播：{}", state.config.getCacheName(), state.config.getInvalidationTopic());
+        } else if (o instanceof HotKeyTick) {
+            handleHotKeyTick();
+        } else if (o instanceof SnapshotTick) {
+            handleSnapshotTick();
+        } else if (o instanceof SnapshotWritten) {
+            snapshotWriting = false;
+        } else if (o instanceof AddFilterKeys) {
+            handleAddFilterKeys((AddFilterKeys<TKey>) o);
+        } else if (o instanceof BatchTick) {
+            batchTickTimer = null;
+            flushBatchRequest();
+        } else if (o instanceof ReadBuffer.Drain) {
+            //已在onReceive中取出
+        } else if (o instanceof GetRoutees) {
+            //Pool的GetRoutees由Router处理，到达这里说明不是Pool，回复空的实例列表，CacheRouting据此把getAll的Key合并为一个请求
+            sender().tell(new Routees(Util.immutableIndexedSeq(Collections.<Routee>emptyList())), self());
         } else {
             unhandled(o);
         }
@@ -132,108 +309,618 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
             Map<TKey, TimedData<TData>> items = state.dataSource.initCache(keys);
             if (items != null) {
                 for (Map.Entry<TKey, TimedData<TData>> e : items.entrySet()) {
-                    CachedItem<TKey, TData> item = new CachedItem<>(e.getKey());
+                    CachedItem<TKey, TData> item = state.newItem(e.getKey());
                     TimedData<TData> value = e.getValue();
-                    item.setData(value.data, value.time);
+                    item.setData(toStoredData(value.data), value.time);
                     state.cacheMap.put(e.getKey(), item);
+                    onItemStored(item);
                 }
                 log.info("初始化缓存({})完成，共加载{}项", state.config.getCacheName(), items.size());
             }
         }
     }
 
+    private void handleHotKeyTick() {
+        List<HotKey<TKey>> list = state.hotKeys.drain();
+        if (list.isEmpty()) {
+            return;
+        }
+        String member = self().path().name();
+        if (log.isInfoEnabled()) {
+            StringBuilder sb = new StringBuilder();
+            for (HotKey<TKey> h : list) {
+                sb.append(h.key).append('=').append(h.requests).append('/').append(h.misses).append(' ');
+            }
+            log.info("({})热点Key[{}]（请求数/未命中数）：{}", state.config.getCacheName(), member, sb);
+        }
+        state.hitStat.onHotKeys(member, list);
+    }
+
+    private File snapshotFile() {
+        //缓存池的每个实例各写一个快照文件
+        String name = state.config.getCacheName() + "." + self().path().name() + ".snapshot";
+        return new File(state.config.getSnapshotDir(), name);
+    }
+
+    private void loadSnapshot() {
+        if (state.config.getSnapshotDir() == null) {
+            return;
+        }
+        File file = snapshotFile();
+        long start = System.currentTimeMillis();
+        try {
+            int count = CacheSnapshot.<TKey,TData>load(file, state.config.getKeyCodec(), state.config.getValueCodec(),
+                (key, data) -> {
+                    CachedItem<TKey, TData> item = state.newItem(key);
+                    item.restoreData(new TimedData<>(data.time, toStoredData(data.data), data.removeOnExpired));
+                    state.cacheMap.put(key, item);
+                    onItemStored(item);
+                });
+            if (count > 0) {
+                log.info("从快照加载缓存({})完成，共加载{}项，耗时{}ms", state.config.getCacheName(), count, System.currentTimeMillis() - start);
+            }
+        } catch (Exception ex) {
+            log.warn("从快照加载缓存({})失败: {}", state.config.getCacheName(), file, ex);
+        }
+    }
+
+    private void handleSnapshotTick() {
+        if (snapshotWriting || snapshotExecutor == null) {
+            return;
+        }
+        snapshotWriting = true;
+        final ActorRef self = self();
+        final File file = snapshotFile();
+        snapshotExecutor.execute(() -> {
+            try {
+                writeSnapshot(file);
+            } finally {
+                self.tell(new SnapshotWritten(), ActorRef.noSender());
+            }
+        });
+    }
+
+    //在正在写的快照完成后写入最后一次快照，避免两个线程同时写同一个临时文件
+    private void writeFinalSnapshot(ExecutorService executor, File file) {
+        try {
+            if (!executor.awaitTermination(FINAL_SNAPSHOT_WAIT, TimeUnit.MILLISECONDS)) {
+                log.warn("等待缓存({})的快照写入超时，放弃停止时的快照", state.config.getCacheName());
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        writeSnapshot(file);
+    }
+
+    //cacheMap为ConcurrentHashMap，可以在写快照的线程遍历；
+    //file需在Actor的线程中取得，Actor停止后self()不可用
+    private void writeSnapshot(File file) {
+        long start = System.currentTimeMillis();
+        try {
+            int count = CacheSnapshot.write(file, state.cacheMap.values(), state.config.getKeyCodec(), state.config.getValueCodec());
+            log.debug("写缓存({})快照完成，共{}项，耗时{}ms", state.config.getCacheName(), count, System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            log.warn("写缓存({})快照失败: {}", state.config.getCacheName(), file, ex);
+        }
+    }
+
     //-------------------------------------------------------------------------------------
     private void handleGetData(final GetData<TKey,TData> req, ServiceRequest serviceRequest) {
         final String cacheName = state.config.getCacheName();
         GetDataResponser responser =  new GetDataResponser(req, sender(), cacheName, serviceRequest);
+        if (req.createNanos != 0) {
+            state.hitStat.onMailboxWait(System.nanoTime() - req.createNanos);
+        }
         handleRequest(req, responser);
     }
 
+    private void handleGetMulti(final GetMulti<TKey,TData> req, ServiceRequest serviceRequest) {
+        final String cacheName = state.config.getCacheName();
+        GetMultiResponser collector = new GetMultiResponser(req, sender(), cacheName, serviceRequest);
+        for (TKey key : req.keys) {
+            handleRequest(new GetData<>(key), collector.responser(key));
+        }
+    }
+
     protected void handleRequest(final ICacheRequest<TKey,TData> req, IResponser responser) {
+        final long startNanos = System.nanoTime();
         state.hitStat.onRequest(req.getKey());
+        if (state.hotKeys != null) {
+            state.hotKeys.onRequest(req.getKey());
+        }
         TKey key = req.getKey();
         final String cacheName = state.config.getCacheName();
         final CachedItem<TKey,TData> item = state.cacheMap.get(key);
-        if (item == null) { //缓存的初始状态，新建一个CachedItem，从数据源读取数据
+        if (item != null && state.evictionPolicy != null) {
+            state.evictionPolicy.onAccess(key);
+        }
+        if (item == null && state.keyFilter != null && !state.keyFilter.mightContain(key)) {
+            //Key不在数据源加载的有效Key中，直接通知请求者
+            state.hitStat.onKeyFiltered(req.getKey());
+            if (log.isTraceEnabled()) {
+                log.trace("({})Key不在过滤器中，不请求数据源，key={}", cacheName, key);
+            }
+            responser.failed(notFound(key), self());
+        } else if (item == null && state.negativeCache != null && state.negativeCache.contains(key, System.currentTimeMillis())) {
+            //数据源已返回过没有对应的数据，在negativeTtl内直接通知请求者
+            state.hitStat.onNegativeHit(req.getKey());
+            if (log.isTraceEnabled()) {
+                log.trace("({})Key没有对应的数据，不再请求数据源，key={}", cacheName, key);
+            }
+            responser.failed(notFound(key), self());
+        } else if (item == null) { //缓存的初始状态，新建一个CachedItem，从数据源读取数据
             state.hitStat.onMiss(req.getKey());
-            log.trace("({})缓存未命中，发起更新请求，key={}", cacheName, key);
+            if (state.hotKeys != null) {
+                state.hotKeys.onMiss(req.getKey());
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("({})缓存未命中，发起更新请求，key={}", cacheName, key);
+            }
             requestData(key, responser);
         } else if (item.isExpired()) { //数据已过期
             state.hitStat.onExpired(req.getKey());
             if (item.isUpdateBackoff()) {
-                log.trace("({})缓存过期，更新请求Backoff中，key={}", cacheName, key);
-                responser.send(item.getDataAndUpdateLastRequestTime(), self());
+                if (log.isTraceEnabled()) {
+                    log.trace("({})缓存过期，更新请求Backoff中，key={}", cacheName, key);
+                }
+                sendCached(responser, item);
             } else {
                 item.onRequestUpdate(state.config.getMaxBackoff());
-                if (state.config.waitForRespond()) {
-                    log.trace("({})缓存过期，发起更新请求，key={}", cacheName, key);
+                if (state.config.waitForRespond() && !item.isRestored()) {
+                    if (log.isTraceEnabled()) {
+                        log.trace("({})缓存过期，发起更新请求，key={}", cacheName, key);
+                    }
                     requestData(key, responser);
                 } else {
-                    log.trace("({})缓存过期，发起更新请求，暂时使用旧数据返回请求者，key={}", cacheName, key);
-                    responser.send(item.getDataAndUpdateLastRequestTime(), self());
+                    if (log.isTraceEnabled()) {
+                        log.trace("({})缓存过期，发起更新请求，暂时使用旧数据返回请求者，key={}", cacheName, key);
+                    }
+                    sendCached(responser, item);
                     requestData(key, doNothing);
                 }
             }
         } else {//数据未过期
             state.hitStat.onHit(req.getKey());
-            log.trace("({})命中缓存，key={}", cacheName, key);
+            if (log.isTraceEnabled()) {
+                log.trace("({})命中缓存，key={}", cacheName, key);
+            }
+            sendCached(responser, item);
+            state.hitStat.onHitLatency(System.nanoTime() - startNanos);
+            if (state.config.getRefreshAheadRatio() > 0) {
+                refreshAhead(key, item);
+            }
+        }
+    }
+
+    /**
+     * 常用的Key进入提前刷新窗口后异步更新数据，新数据在过期前就能写入缓存；
+     * 已有相同Key的数据源请求未返回时不再发起
+     */
+    private void refreshAhead(TKey key, CachedItem<TKey,TData> item) {
+        if (pendingRequests.containsKey(key)
+            || !item.isRefreshAheadDue(state.config.getRefreshAheadRatio(), state.config.getRefreshAheadMinRequests(), System.currentTimeMillis())) {
+            return;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("({})缓存即将过期，提前发起更新请求，key={}", state.config.getCacheName(), key);
+        }
+        item.onRefreshAhead();
+        state.hitStat.onRefreshAhead(key);
+        requestData(key, doNothing);
+    }
+
+    /**
+     * 用缓存项的数据回复请求者，GetData请求直接使用缓存项上复用的DataResult，命中时不再新建
+     */
+    private void sendCached(IResponser responser, CachedItem<TKey,TData> item) {
+        if (responser instanceof GetDataResponser) {
+            ((GetDataResponser) responser).sendResult(item.getResultAndUpdateLastRequestTime(state.config.getCacheName()), self());
+        } else {
             responser.send(item.getDataAndUpdateLastRequestTime(), self());
         }
     }
 
     protected void requestData(TKey key,IResponser responser) {
+        final PendingRequest pending = pendingRequests.get(key);
+        long now = System.currentTimeMillis();
+        if (pending != null && now - pending.startTime < state.config.getPendingRequestTimeout()) {
+            //已有相同Key的数据源请求未返回，合并到此请求，等待其结果
+            if (responser != doNothing) {
+                if (log.isTraceEnabled()) {
+                    log.trace("({})合并数据源请求，key={}", state.config.getCacheName(), key);
+                }
+                pending.waiters.add(responser);
+                state.hitStat.onCoalesced(key);
+            }
+            return;
+        }
+        if (state.config.getBatchRequestSize() > 1) {
+            addBatchRequest(key, responser, pending, now);
+            return;
+        }
         try {
-            final Future<TimedData<TData>> future = state.dataSource.request(self(),state.config.getCacheName(), key);
+            final CachedItem<TKey,TData> item = state.cacheMap.get(key);
+            final TimedData<TData> current = item == null ? null : item.tryPeekData();
+            final long sourceStart = System.nanoTime();
+            final Future<TimedData<TData>> future = state.dataSource.request(self(),state.config.getCacheName(), key, current);
+            recordSourceLatency(future, sourceStart);
+            if (pending == null) {
+                pendingRequests.put(key, new PendingRequest(now));
+            } else { //原请求超时未返回，已合并的等待者转到新请求上
+                pending.restart(now);
+            }
             onSuccessData(key, future, responser);
             onFailureData(key, future, responser);
         } catch (Exception ex) {
             handleFailed(new Failed<>(key,responser,ex));
         }
     }
+    /**
+     * 批量模式：请求者登记为等待者，Key加入待合并的批量请求，数量达到上限或等待时间到后发起
+     */
+    private void addBatchRequest(TKey key, IResponser responser, PendingRequest pending, long now) {
+        if (pending == null) {
+            pending = new PendingRequest(now);
+            pendingRequests.put(key, pending);
+        } else { //原请求超时未返回
+            pending.restart(now);
+        }
+        if (responser != doNothing) {
+            pending.waiters.add(responser);
+        }
+        batchKeys.add(key);
+        if (batchKeys.size() >= state.config.getBatchRequestSize()) {
+            flushBatchRequest();
+        } else if (batchTickTimer == null) {
+            batchTickTimer = context().system().scheduler().scheduleOnce(
+                Duration.create(state.config.getBatchRequestDelay(), TimeUnit.MILLISECONDS),
+                self(),
+                new BatchTick(),
+                context().dispatcher(),
+                self());
+        }
+    }
+
+    private void flushBatchRequest() {
+        if (batchTickTimer != null) {
+            batchTickTimer.cancel();
+            batchTickTimer = null;
+        }
+        if (batchKeys.isEmpty()) {
+            return;
+        }
+        final String cacheName = state.config.getCacheName();
+        final List<TKey> keys = new ArrayList<>(batchKeys);
+        batchKeys.clear();
+        log.trace("({})批量请求数据，keys.size={}", cacheName, keys.size());
+        final Map<TKey, TimedData<TData>> current = new HashMap<>();
+        for (TKey key : keys) {
+            CachedItem<TKey,TData> item = state.cacheMap.get(key);
+            TimedData<TData> data = item == null ? null : item.tryPeekData();
+            if (data != null) {
+                current.put(key, data);
+            }
+        }
+        try {
+            final long sourceStart = System.nanoTime();
+            final Future<Map<TKey, TimedData<TData>>> future = state.dataSource.requestBatch(self(), cacheName, keys, current);
+            recordSourceLatency(future, sourceStart);
+            onBatchData(keys, future);
+        } catch (Exception ex) {
+            for (TKey key : keys) {
+                handleFailed(new Failed<>(key, doNothing, ex));
+            }
+        }
+    }
+
+    /**
+     * 批量请求返回后，逐个Key通知Actor，由handleDataResult与handleFailed更新缓存并通知等待者；
+     * 返回PartialBatchException时只有其中失败的Key按失败处理
+     */
+    protected void onBatchData(final List<TKey> keys, final Future<Map<TKey, TimedData<TData>>> future) {
+        final String cacheName = state.config.getCacheName();
+        ActorRef cacheActor = self();
+        future.onComplete(new OnComplete<Map<TKey, TimedData<TData>>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onComplete(Throwable failure, Map<TKey, TimedData<TData>> success) throws Throwable {
+                Map<?, ? extends TimedData<?>> result = success;
+                Map<?, ? extends Throwable> failures = Collections.emptyMap();
+                Throwable batchError = failure;
+                if (failure instanceof PartialBatchException) {
+                    PartialBatchException partial = (PartialBatchException) failure;
+                    result = partial.results;
+                    failures = partial.failures;
+                    batchError = null;
+                }
+                for (TKey key : keys) {
+                    Throwable error = batchError == null ? failures.get(key) : batchError;
+                    if (error == null) {
+                        TimedData<TData> timedData = result == null ? null : (TimedData<TData>) result.get(key);
+                        if (timedData == null) {
+                            cacheActor.tell(new Failed<>(key, doNothing, notFound(key), true), ActorRef.noSender());
+                        } else {
+                            cacheActor.tell(new DataResult<>(cacheName, key, timedData.time, timedData.data), ActorRef.noSender());
+                        }
+                    } else {
+                        cacheActor.tell(new Failed<>(key, doNothing, error), ActorRef.noSender());
+                        state.dataSource.onRequestFailed(cacheActor, cacheName, key);
+                    }
+                }
+            }
+        }, context().dispatcher());
+    }
+    private <T> void recordSourceLatency(Future<T> future, long startNanos) {
+        final IHitStat<TKey> hitStat = state.hitStat;
+        future.onComplete(new OnComplete<T>() {
+            @Override
+            public void onComplete(Throwable failure, T success) {
+                hitStat.onSourceLatency(System.nanoTime() - startNanos);
+            }
+        }, context().dispatcher());
+    }
     //-------------------------------------------------------------------------------------
     protected void handleDataResult(final DataResult<TKey,TData> req) {
         final String cacheName = state.config.getCacheName();
         CachedItem<TKey,TData> item = state.cacheMap.get(req.key);
         if (item == null) {
-            log.trace("({})新建缓存，key={}", cacheName, req.key);
-            item = new CachedItem<>(req.key);
+            if (log.isTraceEnabled()) {
+                log.trace("({})新建缓存，key={}", cacheName, req.key);
+            }
+            item = state.newItem(req.key);
             state.cacheMap.put(req.key, item);
         } else {
-            log.trace("({})更新缓存,key={}", cacheName, req.key);
+            if (log.isTraceEnabled()) {
+                log.trace("({})更新缓存,key={}", cacheName, req.key);
+            }
+        }
+        if (state.negativeCache != null) {
+            state.negativeCache.remove(req.key);
+        }
+        if (state.keyFilter != null) {
+            state.keyFilter.put(req.key);
+        }
+        long oldTime = item.timedData.time;
+        item.setData(toStoredData(req.data),req.expiredTime);
+        if (item.timedData.time != oldTime) {
+            pushData(req);
+        }
+        PendingRequest pending = pendingRequests.remove(req.key);
+        if (pending != null) {
+            state.hitStat.onFillLatency(System.nanoTime() - pending.startNanos);
+            for (IResponser r : pending.waiters) {
+                sendCached(r, item);
+            }
+        }
+        onItemStored(item);
+    }
+
+    /**
+     * 数据保存到缓存前的转换，子类可以转换为更适合缓存读取的结构（例如ListCacheActor）
+     */
+    protected TData toStoredData(TData data) {
+        return data;
+    }
+
+    /**
+     * 缓存新增或更新后，登记清理时间与自动更新时间，并按容量限制淘汰数据
+     */
+    private void onItemStored(CachedItem<TKey,TData> item) {
+        if (state.cleanTimer != null) {
+            state.cleanTimer.scheduleIfEarlier(item.key, cleanDeadline(item));
+        }
+        if (state.refreshTimer != null && isAutoUpdate(item)) {
+            state.refreshTimer.scheduleIfEarlier(item.key, item.timedData.time);
+        }
+        if (state.evictionPolicy == null) {
+            return;
+        }
+        state.evictionPolicy.onPut(item.key, state.weigh(item), evictedKeys);
+        if (!evictedKeys.isEmpty()) {
+            for (TKey k : evictedKeys) {
+                log.trace("({})超出缓存容量，淘汰缓存，key={}", state.config.getCacheName(), k);
+                removeItem(k);
+                state.hitStat.onEvicted(k);
+            }
+            evictedKeys.clear();
         }
-        item.setData(req.data,req.expiredTime);
     }
     //-------------------------------------------------------------------------------------
     protected void handleFailed(final Failed<TKey> failed) {
         final String cacheName = state.config.getCacheName();
-        final CachedItem item = state.cacheMap.get(failed.key);
-        if (item==null) {
+        final CachedItem<TKey,TData> item = state.cacheMap.get(failed.key);
+        if (failed.notFound) {
+            //数据源没有对应的数据属于正常结果（例如请求了不存在的ID），不记录异常
+            if (log.isDebugEnabled()) {
+                log.debug("({})数据源没有对应的数据，key={}", cacheName, failed.key);
+            }
+        } else if (item == null) {
             if (failed.responser == doNothing) {
                 log.warn("({})请求新数据失败，key={}", cacheName, failed.key, failed.error);
             } else {
                 log.warn("({})请求新数据失败；无可用数据，通知请求者已失败，key={}", cacheName, failed.key, failed.error);
             }
-            failed.responser.failed(failed.error, self());
         } else {
             if (failed.responser == doNothing) {
                 log.warn("({})请求新数据失败，key={}", cacheName, failed.key, failed.error);
             } else {
                 log.warn("({})请求新数据失败；使用旧数据返回请求者，key={}", cacheName, failed.key, failed.error);
             }
-            failed.responser.send(item.getDataAndUpdateLastRequestTime(), self());
+        }
+        if (item==null) {
+            failed.responser.failed(failed.error, self());
+            if (failed.notFound && state.negativeCache != null) {
+                state.negativeCache.put(failed.key, System.currentTimeMillis());
+            }
+        } else {
+            sendCached(failed.responser, item);
+        }
+        PendingRequest pending = pendingRequests.remove(failed.key);
+        if (pending != null) {
+            for (IResponser r : pending.waiters) {
+                if (item == null) {
+                    r.failed(failed.error, self());
+                } else {
+                    sendCached(r, item);
+                }
+            }
         }
     }
     //-------------------------------------------------------------------------------------
     protected void handleMarkDirty(MarkDirty<TKey,TData> event) {
+        markDirty(event.key);
+        if (invalidationMediator != null) {
+            addInvalidation(event.key);
+        }
+    }
+
+    private void markDirty(TKey key) {
         final String cacheName = state.config.getCacheName();
-        final CachedItem<TKey,TData> item = state.cacheMap.get(event.key);
+        final CachedItem<TKey,TData> item = state.cacheMap.get(key);
+        if (state.negativeCache != null) {
+            state.negativeCache.remove(key);
+        }
+        if (state.keyFilter != null) {
+            //数据有变化，可能是新增的Key
+            state.keyFilter.put(key);
+        }
         if (item == null) {
-            log.debug("({})尝试标记缓存为脏数据，但缓存未命中，key={}", cacheName, event.key);
+            log.debug("({})尝试标记缓存为脏数据，但缓存未命中，key={}", cacheName, key);
         } else {
-            log.debug("({})标记缓存为脏数据，key={}", cacheName, event.key);
+            log.debug("({})标记缓存为脏数据，key={}", cacheName, key);
             item.markDirty();
+            if (state.refreshTimer != null && isAutoUpdate(item)) {
+                state.refreshTimer.scheduleIfEarlier(key, 0);
+            }
+        }
+        state.dataSource.afterDirtyMarked(self(), cacheName, key);
+    }
+
+    //-------------------------------------------------------------------------------------
+    private void handleAddFilterKeys(AddFilterKeys<TKey> msg) {
+        final String cacheName = state.config.getCacheName();
+        if (state.keyFilter == null) {
+            log.warn("({})未设置keyFilterExpectedKeys，忽略加入过滤器的{}个Key", cacheName, msg.keys.size());
+            return;
+        }
+        boolean clearNegative = state.negativeCache != null && state.negativeCache.size() > 0;
+        for (TKey key : msg.keys) {
+            state.keyFilter.put(key);
+            if (clearNegative) {
+                state.negativeCache.remove(key);
+            }
+        }
+        if (msg.complete && !state.keyFilter.isReady()) {
+            log.info("({})Key过滤器加载完成，开始拦截不存在的Key", cacheName);
+            state.keyFilter.setReady();
+        }
+        log.debug("({})加入过滤器{}个Key", cacheName, msg.keys.size());
+    }
+
+    //-------------------------------------------------------------------------------------
+    private void pushData(DataResult<TKey,TData> result) {
+        Set<ActorRef> set = subscribers.get(result.key);
+        if (set != null) {
+            DataPush<TKey,TData> push = new DataPush<>(result);
+            for (ActorRef s : set) {
+                s.tell(push, self());
+            }
+        }
+    }
+
+    //缓存服务推送的数据，只更新本地仍在缓存的数据，已清除的数据取消订阅
+    private void handleDataPush(DataPush<TKey,TData> push) {
+        TKey key = push.result.key;
+        if (state.cacheMap.containsKey(key)) {
+            log.trace("({})收到推送的数据更新，key={}", state.config.getCacheName(), key);
+            handleDataResult(push.result);
+        } else {
+            sender().tell(new UnsubscribeData<>(key, self()), self());
+        }
+    }
+
+    private void handleSubscribe(SubscribeData<TKey,TData> req) {
+        subscribers.computeIfAbsent(req.key, k -> new HashSet<>()).add(req.subscriber);
+        Set<TKey> keys = subscriptions.get(req.subscriber);
+        if (keys == null) {
+            keys = new HashSet<>();
+            subscriptions.put(req.subscriber, keys);
+            context().watch(req.subscriber);
+        }
+        keys.add(req.key);
+    }
+
+    private void handleUnsubscribe(UnsubscribeData<TKey,TData> req) {
+        removeSubscriber(req.key, req.subscriber);
+        Set<TKey> keys = subscriptions.get(req.subscriber);
+        if (keys != null) {
+            keys.remove(req.key);
+            if (keys.isEmpty()) {
+                subscriptions.remove(req.subscriber);
+                context().unwatch(req.subscriber);
+            }
+        }
+    }
+
+    private void handleSubscriberTerminated(ActorRef subscriber) {
+        Set<TKey> keys = subscriptions.remove(subscriber);
+        if (keys != null) {
+            for (TKey key : keys) {
+                removeSubscriber(key, subscriber);
+            }
+        }
+    }
+
+    private void removeSubscriber(TKey key, ActorRef subscriber) {
+        Set<ActorRef> set = subscribers.get(key);
+        if (set != null) {
+            set.remove(subscriber);
+            if (set.isEmpty()) {
+                subscribers.remove(key);
+            }
+        }
+    }
+
+    //收到其他缓存广播的失效消息，只标记本地数据，不再转发
+    private void handleInvalidationBatch(InvalidationBatch<TKey> batch) {
+        if (self().equals(batch.origin)) {
+            return;
+        }
+        log.debug("({})收到缓存失效广播，共{}项", state.config.getCacheName(), batch.keys.size());
+        for (TKey key : batch.keys) {
+            markDirty(key);
+        }
+    }
+
+    private void addInvalidation(TKey key) {
+        invalidationKeys.add(key);
+        if (invalidationKeys.size() >= state.config.getInvalidationBatchSize()) {
+            flushInvalidation();
+        } else if (invalidationTickTimer == null) {
+            invalidationTickTimer = context().system().scheduler().scheduleOnce(
+                Duration.create(state.config.getInvalidationBatchDelay(), TimeUnit.MILLISECONDS),
+                self(),
+                new InvalidationTick(),
+                context().dispatcher(),
+                self());
         }
-        state.dataSource.afterDirtyMarked(self(), cacheName, event.key);
+    }
+
+    private void flushInvalidation() {
+        if (invalidationTickTimer != null) {
+            invalidationTickTimer.cancel();
+            invalidationTickTimer = null;
+        }
+        if (invalidationKeys.isEmpty()) {
+            return;
+        }
+        String topic = state.config.getInvalidationTopic();
+        List<TKey> keys = new ArrayList<>(invalidationKeys);
+        invalidationKeys.clear();
+        log.debug("({})广播缓存失效，共{}项", state.config.getCacheName(), keys.size());
+        invalidationMediator.tell(new DistributedPubSubMediator.Publish(topic, new InvalidationBatch<>(self(), keys)), self());
     }
     //-------------------------------------------------------------------------------------
     protected void onSuccessData(final TKey key, final Future<TimedData<TData>> future, IResponser responser) {
@@ -243,8 +930,10 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
             @Override
             public void onSuccess(TimedData<TData> timedData) throws Throwable {
                 if (timedData == null) {
-                    Exception ex = new IllegalArgumentException(cacheName+"."+key+"没有对应的数据");
+                    Exception ex = notFound(key);
                     responser.failed(ex, ActorRef.noSender());
+                    //通知Actor释放合并在此请求上的等待者
+                    cacheActor.tell(new Failed<>(key, doNothing, ex, true), ActorRef.noSender());
                 } else {
                     cacheActor.tell(new DataResult<>(cacheName, key, timedData.time, timedData.data), ActorRef.noSender());
                     responser.send(timedData, ActorRef.noSender());
@@ -268,63 +957,125 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
     }
     //-------------------------------------------------------------------------------------
     /**
-     * 清除Idle过期缓存
+     * 清除Idle过期缓存：推进时间轮，只检查到期的缓存项
      */
     protected void handleCleanTick() {
-        final List<CachedItem<TKey,TData>> expired = new LinkedList<>();
         long now = System.currentTimeMillis();
-        log.trace("{} cacheMap.size = {}",state.config.getCacheName(),state.cacheMap.size());
-        for (CachedItem<TKey,TData> item : state.cacheMap.values()) {
-            long idleTimeout = state.config.getIdleTimeout(item.key);
-            log.trace("{} idleTimeout={}",state.config.getCacheName(),idleTimeout);
-            if (idleTimeout > 0) {
-                //数据闲置的过期时间
-                long idleExpiredTime = item.getLastRequestTime() + idleTimeout;
-                log.trace("{} idleExpiredTime={}  idleExpiredTime-now={}",state.config.getCacheName(),idleExpiredTime,idleExpiredTime-now);
-                if (now > idleExpiredTime) {
-                    expired.add(item);
-                    state.hitStat.onIdleRemoved(item.key);
-                    continue;
-                }
-            }
-            //数据被标识为过期移除则删除缓存, 注意：不能调用item.getData().removeOnExpired获取状态
-            //因为getData()会修改lastRequestTime，让item的idle无法过期
-            if (item.isExpired() && item.isRemoveOnExpired()) {
-                expired.add(item);
-                state.hitStat.onExpiredRemoved(item.key);
-            }
+        if (state.negativeCache != null) {
+            state.negativeCache.purgeExpired(now);
         }
-        log.trace("{} expired.size = {}",state.config.getCacheName(),expired.size());
-        if (expired.size() > 0) {
-            log.debug("'{}' has items = {}, to be cleaned items = {}",
-                state.config.getCacheName(), state.cacheMap.size(), expired.size());
+        if (state.cleanTimer == null) {
+            return;
         }
-        for (CachedItem<TKey,TData> it : expired) {
-            state.cacheMap.remove(it.key);
+        int size = state.cacheMap.size();
+        state.cleanTimer.advance(now, this::expireCleanTimer);
+        int cleaned = size - state.cacheMap.size();
+        if (cleaned > 0) {
+            log.debug("'{}' has items = {}, cleaned items = {}",
+                state.config.getCacheName(), size, cleaned);
         }
-        expired.clear();
         state.hitStat.setSize(state, state.cacheMap.size());
+        if (state.offHeapTier != null) {
+            state.hitStat.setOffHeapSize(state, state.offHeapTier.store.allocatedBytes());
+        }
+    }
+
+    /**
+     * 缓存项的清理时间到期：闲置超时或过期移除则删除缓存，
+     * 否则（期间被访问过）返回新的清理时间
+     */
+    private long expireCleanTimer(TKey key, long now) {
+        final CachedItem<TKey,TData> item = state.cacheMap.get(key);
+        if (item == null) {
+            return Long.MAX_VALUE;
+        }
+        long idleTimeout = state.config.getIdleTimeout(key);
+        if (idleTimeout > 0 && now > item.getLastRequestTime() + idleTimeout) {
+            removeItem(key);
+            state.hitStat.onIdleRemoved(key);
+            return Long.MAX_VALUE;
+        }
+        //数据被标识为过期移除则删除缓存, 注意：不能调用item.getData().removeOnExpired获取状态
+        //因为getData()会修改lastRequestTime，让item的idle无法过期
+        if (item.isExpired() && item.isRemoveOnExpired()) {
+            removeItem(key);
+            state.hitStat.onExpiredRemoved(key);
+            return Long.MAX_VALUE;
+        }
+        return cleanDeadline(item);
     }
 
     /**
-     * 自动更新过期数据
+     * 缓存项的清理时间：闲置超时时间与过期移除时间中较早的一个
+     */
+    private long cleanDeadline(CachedItem<TKey,TData> item) {
+        long deadline = Long.MAX_VALUE;
+        long idleTimeout = state.config.getIdleTimeout(item.key);
+        if (idleTimeout > 0) {
+            deadline = item.getLastRequestTime() + idleTimeout;
+        }
+        if (item.isRemoveOnExpired()) {
+            deadline = Math.min(deadline, item.timedData.time);
+        }
+        return deadline;
+    }
+
+    private void removeItem(TKey key) {
+        CachedItem<TKey,TData> item = state.cacheMap.remove(key);
+        if (item != null) {
+            item.release();
+            state.dataSource.afterItemRemoved(self(), state.config.getCacheName(), key);
+        }
+        if (state.evictionPolicy != null) {
+            state.evictionPolicy.onRemove(key);
+        }
+        if (state.cleanTimer != null) {
+            state.cleanTimer.remove(key);
+        }
+        if (state.refreshTimer != null) {
+            state.refreshTimer.remove(key);
+        }
+    }
+
+    /**
+     * 自动更新过期数据：推进更新时间轮，只处理过期时间已到的Key
      */
     protected void handleUpdateTick() {
-        log.trace("{} cacheMap.size = {}",state.config.getCacheName(),state.cacheMap.size());
-        for (CachedItem<TKey,TData> item : state.cacheMap.values()) {
-            TData data = item.timedData.data; //注意此处不能用getData()，getData（）会更新最后缓存访问时间，会造成idle无法过期
-            boolean isAutoUpdate = state.config.isAutoUpdateExpiredData(item.key, data);
-            //-------------------------------------------------------------
-            //todo: 删除此兼容处理
-            if (!isAutoUpdate) {
-                isAutoUpdate = state.dataSource.isAutoUpdateExpiredData(item.key, data);
-            }
-            //-----------------------------------------------------------
-            if (isAutoUpdate && item.isExpired()) {
-                log.debug("{} auto update {}",state.config.getCacheName(),item.key);
-                requestData(item.key, doNothing);
-            }
+        if (state.refreshTimer == null) {
+            return;
         }
+        state.refreshTimer.advance(System.currentTimeMillis(), this::expireRefreshTimer);
+    }
+
+    /**
+     * 缓存项的数据过期时间已到：需要自动更新则向数据源发起更新请求，
+     * 返回下次检查的时间，更新成功后以新数据的过期时间为准
+     */
+    private long expireRefreshTimer(TKey key, long now) {
+        final CachedItem<TKey,TData> item = state.cacheMap.get(key);
+        if (item == null || !isAutoUpdate(item)) {
+            return Long.MAX_VALUE;
+        }
+        if (item.isExpired()) {
+            log.debug("{} auto update {}",state.config.getCacheName(),key);
+            requestData(key, doNothing);
+            //更新失败或未返回更新的数据时，一个更新周期后重试
+            return now + Math.max(1000, state.config.getAutoUpdatePeriod());
+        } else {
+            return item.timedData.time;
+        }
+    }
+
+    private boolean isAutoUpdate(CachedItem<TKey,TData> item) {
+        TData data = item.peekData(); //注意此处不能用getData()，getData（）会更新最后缓存访问时间，会造成idle无法过期
+        boolean isAutoUpdate = state.config.isAutoUpdateExpiredData(item.key, data);
+        //-------------------------------------------------------------
+        //todo: 删除此兼容处理
+        if (!isAutoUpdate) {
+            isAutoUpdate = state.dataSource.isAutoUpdateExpiredData(item.key, data);
+        }
+        //-----------------------------------------------------------
+        return isAutoUpdate;
     }
 
     /**
@@ -334,15 +1085,66 @@ public abstract class AbstractCacheActor<TKey, TData> extends AbstractActor {
     }
     final static class UpdateTick {
     }
+    final static class HotKeyTick {
+    }
+    final static class InvalidationTick {
+    }
+    final static class SnapshotTick {
+    }
+    final static class SnapshotWritten {
+    }
+    final static class BatchTick {
+    }
+
+    /**
+     * 未返回的数据源请求，及合并到此请求上的等待者
+     */
+    final static class PendingRequest {
+        long startTime;
+        long startNanos;
+        final List<IResponser> waiters = new LinkedList<>();
+        PendingRequest(long startTime) {
+            restart(startTime);
+        }
+        void restart(long startTime) {
+            this.startTime = startTime;
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 数据源没有此Key对应的数据时通知请求者的异常
+     */
+    private Exception notFound(TKey key) {
+        return new DataNotFoundException(state.config.getCacheName() + "." + key + "没有对应的数据");
+    }
+
+    /**
+     * 不记录调用栈：不存在的Key可能被大量请求（negativeTtl与Key过滤器的拦截路径），调用栈对定位问题也没有帮助
+     */
+    final static class DataNotFoundException extends IllegalArgumentException {
+        DataNotFoundException(String message) {
+            super(message);
+        }
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
 
     final static class Failed<TKey> implements Serializable{
         final TKey key;
         IResponser responser;
         final Throwable error;
+        final boolean notFound; //数据源返回null，Key没有对应的数据
         Failed(TKey key, IResponser responser, Throwable error) {
+            this(key, responser, error, false);
+        }
+        Failed(TKey key, IResponser responser, Throwable error, boolean notFound) {
             this.key = key;
             this.responser = responser;
             this.error = error;
+            this.notFound = notFound;
         }
     }
 }
@@ -2,9 +2,13 @@ package net.arksea.acache;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  *
@@ -12,13 +16,29 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public abstract class AbstractHitStatService<Key> implements IHitStat<Key> {
     private String tableName;
-    private AtomicLong request = new AtomicLong(0L);
-    private AtomicLong hit     = new AtomicLong(0L);
-    private AtomicLong expired = new AtomicLong(0L);
-    private AtomicLong miss    = new AtomicLong(0L);
-    private AtomicLong idleRemoved = new AtomicLong(0L);
-    private AtomicLong expiredRemoved = new AtomicLong(0L);
+    private final LongAdder request = new LongAdder();
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder idleRemoved = new LongAdder();
+    private final LongAdder expiredRemoved = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder refreshAhead = new LongAdder();
+    private final LongAdder negativeHit = new LongAdder();
+    private final LongAdder keyFiltered = new LongAdder();
+    //被压缩的数据压缩前与压缩后的字节数
+    private final LongAdder compressRaw = new LongAdder();
+    private final LongAdder compressed = new LongAdder();
     private Map<Object,AtomicLong> sizeMap = new ConcurrentHashMap<>();
+    private Map<Object,AtomicLong> offHeapSizeMap = new ConcurrentHashMap<>();
+    //延迟统计，单位微秒，日志中输出p50/p99/p999
+    private final LatencyHistogram hitLatency = new LatencyHistogram();
+    private final LatencyHistogram fillLatency = new LatencyHistogram();
+    private final LatencyHistogram sourceLatency = new LatencyHistogram();
+    private final LatencyHistogram mailboxWait = new LatencyHistogram();
+    //各缓存实例最近一次报告的热点Key
+    private final Map<Object,List<HotKey<Key>>> hotKeysMap = new ConcurrentHashMap<>();
 
 
     public AbstractHitStatService() {
@@ -33,32 +53,57 @@ public abstract class AbstractHitStatService<Key> implements IHitStat<Key> {
 
     @Override
     public void onRequest(Key key) {
-        this.request.incrementAndGet();
+        this.request.increment();
     }
 
     @Override
     public void onHit(Key key) {
-        this.hit.incrementAndGet();
+        this.hit.increment();
     }
 
     @Override
     public void onExpired(Key key) {
-        this.expired.incrementAndGet();
+        this.expired.increment();
     }
 
     @Override
     public void onMiss(Key key) {
-        this.miss.incrementAndGet();
+        this.miss.increment();
     }
 
     @Override
     public void onIdleRemoved(Key key) {
-        this.idleRemoved.incrementAndGet();
+        this.idleRemoved.increment();
     }
 
     @Override
     public void onExpiredRemoved(Key key) {
-        this.expiredRemoved.incrementAndGet();
+        this.expiredRemoved.increment();
+    }
+
+    @Override
+    public void onCoalesced(Key key) {
+        this.coalesced.increment();
+    }
+
+    @Override
+    public void onEvicted(Key key) {
+        this.evicted.increment();
+    }
+
+    @Override
+    public void onRefreshAhead(Key key) {
+        this.refreshAhead.increment();
+    }
+
+    @Override
+    public void onNegativeHit(Key key) {
+        this.negativeHit.increment();
+    }
+
+    @Override
+    public void onKeyFiltered(Key key) {
+        this.keyFiltered.increment();
     }
 
     @Override
@@ -72,6 +117,48 @@ public abstract class AbstractHitStatService<Key> implements IHitStat<Key> {
         }
     }
 
+    @Override
+    public void setOffHeapSize(Object tag,long bytes) {
+        AtomicLong a = offHeapSizeMap.get(tag);
+        if (a == null) {
+            a = new AtomicLong(bytes);
+            offHeapSizeMap.put(tag, a);
+        } else {
+            a.set(bytes);
+        }
+    }
+
+    @Override
+    public void onHitLatency(long nanos) {
+        hitLatency.recordNanos(nanos);
+    }
+
+    @Override
+    public void onFillLatency(long nanos) {
+        fillLatency.recordNanos(nanos);
+    }
+
+    @Override
+    public void onSourceLatency(long nanos) {
+        sourceLatency.recordNanos(nanos);
+    }
+
+    @Override
+    public void onMailboxWait(long nanos) {
+        mailboxWait.recordNanos(nanos);
+    }
+
+    @Override
+    public void onHotKeys(Object tag, List<HotKey<Key>> hotKeys) {
+        hotKeysMap.put(tag, hotKeys);
+    }
+
+    @Override
+    public void onCompressed(long rawBytes, long compressedBytes) {
+        compressRaw.add(rawBytes);
+        compressed.add(compressedBytes);
+    }
+
     public void writeLogs() {
         String body = getLogBody();
         if (StringUtils.isNotEmpty(body)) {
@@ -81,25 +168,100 @@ public abstract class AbstractHitStatService<Key> implements IHitStat<Key> {
 
     private String getLogBody() {
         StringBuilder sb = new StringBuilder();
-        long req = this.request.getAndSet(0L);
-        long hit = this.hit.getAndSet(0L);
-        long exp = this.expired.getAndSet(0L);
-        long miss = this.miss.getAndSet(0L);
-        long idleDel = this.idleRemoved.getAndSet(0L);
-        long expDel = this.expiredRemoved.getAndSet(0L);
+        long req = this.request.sumThenReset();
+        long hit = this.hit.sumThenReset();
+        long exp = this.expired.sumThenReset();
+        long miss = this.miss.sumThenReset();
+        long idleDel = this.idleRemoved.sumThenReset();
+        long expDel = this.expiredRemoved.sumThenReset();
+        long coalesced = this.coalesced.sumThenReset();
+        long evicted = this.evicted.sumThenReset();
+        long refreshAhead = this.refreshAhead.sumThenReset();
+        long negativeHit = this.negativeHit.sumThenReset();
+        long keyFiltered = this.keyFiltered.sumThenReset();
+        long compressRaw = this.compressRaw.sumThenReset();
+        long compressed = this.compressed.sumThenReset();
         long size = sizeMap.values().stream().mapToLong(it -> it.get()).sum();
-        if (req>0 || hit>0 || exp>0 || miss>0) {
+        long offHeap = offHeapSizeMap.values().stream().mapToLong(it -> it.get()).sum();
+        LatencyHistogram.Snapshot hitLat = hitLatency.snapshotAndReset();
+        LatencyHistogram.Snapshot fillLat = fillLatency.snapshotAndReset();
+        LatencyHistogram.Snapshot sourceLat = sourceLatency.snapshotAndReset();
+        LatencyHistogram.Snapshot mailboxLat = mailboxWait.snapshotAndReset();
+        if (req>0 || hit>0 || exp>0 || miss>0 || negativeHit>0 || keyFiltered>0) {
             sb.append(tableName)
                     .append(",name=locate")
                     .append(" request=").append(req)
                     .append(",hit=").append(hit)
                     .append(",expired=").append(exp)
                     .append(",miss=").append(miss)
+                    .append(",negativeHit=").append(negativeHit)
+                    .append(",keyFiltered=").append(keyFiltered)
                     .append(",idleDel=").append(idleDel)
                     .append(",expDel=").append(expDel)
+                    .append(",coalesced=").append(coalesced)
+                    .append(",evicted=").append(evicted)
+                    .append(",refreshAhead=").append(refreshAhead)
                     .append(",size=").append(size)
-                    .append("\n");
+                    .append(",offHeap=").append(offHeap)
+                    .append(",compressRaw=").append(compressRaw)
+                    .append(",compressed=").append(compressed);
+            appendPercentiles(sb, "hit", hitLat);
+            appendPercentiles(sb, "fill", fillLat);
+            appendPercentiles(sb, "source", sourceLat);
+            appendPercentiles(sb, "mailbox", mailboxLat);
+            sb.append("\n");
         }
+        appendHotKeys(sb);
         return sb.toString();
     }
+
+    //每个实例的热点Key（member为实例名），以及合并后整个缓存的热点Key（member=all）
+    private void appendHotKeys(StringBuilder sb) {
+        if (hotKeysMap.isEmpty()) {
+            return;
+        }
+        Map<Key,long[]> merged = new HashMap<>();
+        int topK = 0;
+        for (Object tag : new ArrayList<>(hotKeysMap.keySet())) {
+            List<HotKey<Key>> list = hotKeysMap.remove(tag);
+            if (list == null) {
+                continue;
+            }
+            topK = Math.max(topK, list.size());
+            int rank = 1;
+            for (HotKey<Key> h : list) {
+                appendHotKey(sb, tag.toString(), rank++, h.key, h.requests, h.misses);
+                long[] c = merged.computeIfAbsent(h.key, k -> new long[2]);
+                c[0] += h.requests;
+                c[1] += h.misses;
+            }
+        }
+        List<Map.Entry<Key,long[]>> all = new ArrayList<>(merged.entrySet());
+        all.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        for (int i = 0; i < Math.min(topK, all.size()); i++) {
+            Map.Entry<Key,long[]> e = all.get(i);
+            appendHotKey(sb, "all", i + 1, e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+    }
+
+    private void appendHotKey(StringBuilder sb, String member, int rank, Key key, long requests, long misses) {
+        sb.append(tableName).append("_hotkey,name=locate,member=").append(escapeTag(member))
+          .append(",rank=").append(rank)
+          .append(" key=\"").append(String.valueOf(key).replace("\\", "\\\\").replace("\"", "\\\""))
+          .append("\",requests=").append(requests)
+          .append(",misses=").append(misses)
+          .append("\n");
+    }
+
+    private static String escapeTag(String tag) {
+        return tag.replace(",", "\\,").replace(" ", "\\ ").replace("=", "\\=");
+    }
+
+    private static void appendPercentiles(StringBuilder sb, String name, LatencyHistogram.Snapshot s) {
+        if (s.count > 0) {
+            sb.append(',').append(name).append("P50=").append(s.percentile(0.5))
+              .append(',').append(name).append("P99=").append(s.percentile(0.99))
+              .append(',').append(name).append("P999=").append(s.percentile(0.999));
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package net.arksea.acache;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * 向CacheActor的Key过滤器（ICacheConfig.getKeyFilterExpectedKeys()大于0时启用）批量加入有效的Key，
+ * 通常由IDataSource在preStart(cacheActor, cacheName)中异步加载全部Key后发给cacheActor，之后再增量发送新增的Key；
+ * Pool模式时每个实例都会调用IDataSource.preStart，各自维护一份过滤器；
+ * 全部Key分多次发送时，只有最后一次的complete为true，过滤器在此之后才开始拦截请求
+ * Created by arksea on 2019/7/4.
+ */
+public class AddFilterKeys<TKey> implements Serializable {
+    public final Collection<TKey> keys;
+    public final boolean complete; //全部有效的Key都已加入
+
+    public AddFilterKeys(Collection<TKey> keys, boolean complete) {
+        this.keys = keys;
+        this.complete = complete;
+    }
+
+    public AddFilterKeys(Collection<TKey> keys) {
+        this(keys, true);
+    }
+}
@@ -0,0 +1,97 @@
+package net.arksea.acache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 读取BinaryWriter写入的数据，数据不完整时抛出IllegalArgumentException
+ * Created by arksea on 2019/6/24.
+ */
+final class BinaryReader {
+    private final byte[] buf;
+    private int pos;
+
+    BinaryReader(byte[] buf) {
+        this.buf = buf;
+    }
+
+    private void require(int n) {
+        if (n < 0 || pos + n > buf.length) {
+            throw new IllegalArgumentException("truncated data, position=" + pos + ", required=" + n);
+        }
+    }
+
+    int readByte() {
+        require(1);
+        return buf[pos++];
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    int readVarInt() {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint, position=" + pos);
+    }
+
+    long readVarLong() {
+        long v = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("malformed varlong, position=" + pos);
+    }
+
+    int readSignedVarInt() {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    long readSignedVarLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (buf[pos++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    byte[] readBytes() {
+        int n = readVarInt() - 1;
+        if (n < 0) {
+            return null;
+        }
+        require(n);
+        byte[] bytes = Arrays.copyOfRange(buf, pos, pos + n);
+        pos += n;
+        return bytes;
+    }
+
+    String readString() {
+        int n = readVarInt() - 1;
+        if (n < 0) {
+            return null;
+        }
+        require(n);
+        String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+        pos += n;
+        return s;
+    }
+}
@@ -0,0 +1,160 @@
+package net.arksea.acache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CacheMessageSerializer默认使用的Key与数据编解码：
+ * 整个值只由null、String、Integer、Long、Boolean、Double、byte[]以及由它们组成的ArrayList、HashMap构成时，
+ * 用带类型标记的紧凑格式编码（缓存内部的ChunkedList按ArrayList编码）；
+ * 否则整个值作为一个整体使用Java序列化，保证解码后的类型（例如LinkedHashMap、TreeMap、不可修改的List）与原值一致
+ * Created by arksea on 2019/6/24.
+ */
+public class BinaryValueCodec implements IValueCodec<Object> {
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DOUBLE = 6;
+    private static final int BYTES = 7;
+    private static final int LIST = 8;
+    private static final int MAP = 9;
+    private static final int JAVA = 127;
+
+    private final SerializableValueCodec<Object> javaCodec = new SerializableValueCodec<>();
+
+    @Override
+    public byte[] encode(Object data) {
+        BinaryWriter out = new BinaryWriter(32);
+        if (isCompact(data)) {
+            write(out, data);
+        } else {
+            out.writeByte(JAVA);
+            out.writeBytes(javaCodec.encode(data));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 值及其包含的所有元素是否都能用紧凑格式编码，并在解码后得到相同类型的值；
+     * 只接受确切的类型，子类（例如LinkedHashMap）的行为无法在解码后还原
+     */
+    private static boolean isCompact(Object v) {
+        if (v == null) {
+            return true;
+        }
+        Class<?> c = v.getClass();
+        if (c == String.class || c == Integer.class || c == Long.class || c == Boolean.class
+            || c == Double.class || c == byte[].class) {
+            return true;
+        } else if (c == ArrayList.class || c == ChunkedList.class) {
+            for (Object e : (List<?>) v) {
+                if (!isCompact(e)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (c == HashMap.class) {
+            for (Map.Entry<?,?> e : ((Map<?,?>) v).entrySet()) {
+                if (!isCompact(e.getKey()) || !isCompact(e.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return read(new BinaryReader(bytes));
+    }
+
+    private void write(BinaryWriter out, Object v) {
+        if (v == null) {
+            out.writeByte(NULL);
+        } else if (v instanceof String) {
+            out.writeByte(STRING);
+            out.writeString((String) v);
+        } else if (v instanceof Integer) {
+            out.writeByte(INT);
+            out.writeSignedVarInt((Integer) v);
+        } else if (v instanceof Long) {
+            out.writeByte(LONG);
+            out.writeSignedVarLong((Long) v);
+        } else if (v instanceof Boolean) {
+            out.writeByte((Boolean) v ? TRUE : FALSE);
+        } else if (v instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) v);
+        } else if (v instanceof byte[]) {
+            out.writeByte(BYTES);
+            out.writeBytes((byte[]) v);
+        } else if (v instanceof List) { //isCompact已检查为ArrayList或ChunkedList
+            List<?> list = (List<?>) v;
+            out.writeByte(LIST);
+            out.writeVarInt(list.size());
+            for (Object e : list) {
+                write(out, e);
+            }
+        } else if (v instanceof Map) { //isCompact已检查为HashMap
+            Map<?,?> map = (Map<?,?>) v;
+            out.writeByte(MAP);
+            out.writeVarInt(map.size());
+            for (Map.Entry<?,?> e : map.entrySet()) {
+                write(out, e.getKey());
+                write(out, e.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("not a compact value: " + v.getClass().getName());
+        }
+    }
+
+    private Object read(BinaryReader in) {
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case INT:
+                return in.readSignedVarInt();
+            case LONG:
+                return in.readSignedVarLong();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case DOUBLE:
+                return in.readDouble();
+            case BYTES:
+                return in.readBytes();
+            case LIST: {
+                int n = in.readVarInt();
+                List<Object> list = new ArrayList<>(Math.min(n, 4096)); //n来自外部数据，不直接按n分配
+                for (int i = 0; i < n; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int n = in.readVarInt();
+                Map<Object,Object> map = new HashMap<>(Math.min(n, 4096) * 4 / 3 + 1);
+                for (int i = 0; i < n; i++) {
+                    Object k = read(in);
+                    map.put(k, read(in));
+                }
+                return map;
+            }
+            case JAVA:
+                return javaCodec.decode(in.readBytes());
+            default:
+                throw new IllegalArgumentException("unknown value tag: " + tag);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package net.arksea.acache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 紧凑二进制格式的写入缓冲区：长度与非负整数用varint编码，可能为负的整数用zigzag varint编码；
+ * 与BinaryReader配对使用，非线程安全
+ * Created by arksea on 2019/6/24.
+ */
+final class BinaryWriter {
+    private byte[] buf;
+    private int pos;
+
+    BinaryWriter(int capacity) {
+        this.buf = new byte[Math.max(16, capacity)];
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+    }
+
+    void writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+
+    void writeBoolean(boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+
+    void writeVarInt(int v) {
+        ensure(5);
+        while ((v & ~0x7F) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    void writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    void writeSignedVarInt(int v) {
+        writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    void writeSignedVarLong(long v) {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    void writeDouble(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        ensure(8);
+        for (int i = 56; i >= 0; i -= 8) {
+            buf[pos++] = (byte) (bits >>> i);
+        }
+    }
+
+    /**
+     * 写入可为null的字节数组：长度加1，0表示null
+     */
+    void writeBytes(byte[] bytes) {
+        if (bytes == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(bytes.length + 1);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    /**
+     * 写入可为null的字符串（UTF-8），格式同writeBytes
+     */
+    void writeString(String s) {
+        writeBytes(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+}
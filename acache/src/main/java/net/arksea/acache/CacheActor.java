@@ -21,11 +21,17 @@ public class CacheActor<TKey, TData> extends AbstractCacheActor {
 
     //Actor重启时继承原Actor状态与缓存
     public static <TKey,TData> Props props(final ICacheConfig config, final IDataSource<TKey,TData> dataRequest, final IHitStat<TKey> hitStat) {
+        return props(config, dataRequest, hitStat, null);
+    }
+
+    //registry不为null时，可以用DirectCacheAsker在调用者线程直接读取命中的缓存
+    public static <TKey,TData> Props props(final ICacheConfig config, final IDataSource<TKey,TData> dataRequest, final IHitStat<TKey> hitStat,
+                                           final CacheStateRegistry<TKey,TData> registry) {
         return Props.create(CacheActor.class, new Creator<CacheActor>() {
             @Override
             public CacheActor<TKey, TData> create() throws Exception {
                 //此state必须放在每次创建实例时，否则会引起建立pooled cache时使用同一个state
-                CacheActorState<TKey,TData> state = new CacheActorState<>(config,dataRequest,hitStat);
+                CacheActorState<TKey,TData> state = new CacheActorState<>(config,dataRequest,hitStat,registry);
                 return new CacheActor<>( state);
             }
         });
@@ -38,7 +44,13 @@ public class CacheActor<TKey, TData> extends AbstractCacheActor {
 
     public static <TKey extends ConsistentHashingRouter.ConsistentHashable,TData>
     Props propsOfCachePool(int poolSize, ICacheConfig<TKey> cacheConfig, IDataSource<TKey,TData> cacheSource, final IHitStat<TKey> hitStat) {
+        return propsOfCachePool(poolSize, cacheConfig, cacheSource, hitStat, null);
+    }
+
+    public static <TKey extends ConsistentHashingRouter.ConsistentHashable,TData>
+    Props propsOfCachePool(int poolSize, ICacheConfig<TKey> cacheConfig, IDataSource<TKey,TData> cacheSource, final IHitStat<TKey> hitStat,
+                           final CacheStateRegistry<TKey,TData> registry) {
         ConsistentHashingPool pool = new ConsistentHashingPool(poolSize);
-        return pool.props(props(cacheConfig, cacheSource, hitStat));
+        return pool.props(props(cacheConfig, cacheSource, hitStat, registry));
     }
 }
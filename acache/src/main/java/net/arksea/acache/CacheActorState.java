@@ -12,10 +12,85 @@ public class CacheActorState<TKey, TData> {
     public final ICacheConfig<TKey> config;
     public final IDataSource<TKey,TData> dataSource;
     public final IHitStat<TKey> hitStat;
+    public final CacheStateRegistry<TKey,TData> registry; //可以为null，不为null时允许DirectCacheAsker直接读取缓存
+    final TinyLfuPolicy<TKey> evictionPolicy; //未设置缓存容量时为null
+    final TimerWheel<TKey> cleanTimer; //登记闲置与过期移除的时间，未设置清理周期时为null
+    final TimerWheel<TKey> refreshTimer; //登记需要自动更新的Key的过期时间，未设置自动更新周期时为null
+    final OffHeapTier<TKey,TData> offHeapTier; //数据的堆外存储，未设置时为null
+    final HotKeyTracker<TKey> hotKeys; //热点Key统计，未设置时为null
+    final ValueCompressor compressor; //数据压缩，未设置压缩阈值时为null，CacheActor运行期间登记在ValueCompressor.Registry中
+    final NegativeCache<TKey> negativeCache; //数据源返回null的Key，未设置negativeTtl时为null
+    final KeyFilter<TKey> keyFilter; //有效Key的过滤器，未设置keyFilterExpectedKeys时为null
+    final ReadBuffer<TKey> readBuffer; //DirectCacheAsker直接命中的Key，由CacheActor取出后更新淘汰策略与热点Key统计，不需要时为null
+    private final IValueCodec<TData> compressCodec; //在堆内压缩保存数据时使用的编解码，不压缩保存时为null
 
     public CacheActorState(final ICacheConfig<TKey> config, IDataSource<TKey,TData> dataSource, IHitStat<TKey> hitStat) {
+        this(config, dataSource, hitStat, null);
+    }
+
+    public CacheActorState(final ICacheConfig<TKey> config, IDataSource<TKey,TData> dataSource, IHitStat<TKey> hitStat,
+                           CacheStateRegistry<TKey,TData> registry) {
         this.config = config;
         this.dataSource = dataSource;
         this.hitStat = hitStat;
+        this.registry = registry;
+        long maximumWeight = config.getMaximumWeight();
+        long maximumSize = config.getMaximumSize();
+        if (maximumWeight > 0) {
+            //只设置了权重上限时无法预知条数，计数表从最小开始，随缓存条数增长扩大（TinyLfuPolicy.onPut）
+            long expectedSize = maximumSize > 0 ? maximumSize : 16;
+            this.evictionPolicy = new TinyLfuPolicy<>(maximumWeight, expectedSize);
+        } else if (maximumSize > 0) {
+            this.evictionPolicy = new TinyLfuPolicy<>(maximumSize, maximumSize);
+        } else {
+            this.evictionPolicy = null;
+        }
+        this.cleanTimer = config.getIdleCleanPeriod() > 0 ? new TimerWheel<>(System.currentTimeMillis()) : null;
+        this.refreshTimer = config.getAutoUpdatePeriod() > 0 ? new TimerWheel<>(System.currentTimeMillis()) : null;
+        if (config.getCompressThreshold() > 0) {
+            this.compressor = new ValueCompressor(config.getCompressThreshold(), hitStat);
+        } else {
+            this.compressor = null;
+        }
+        boolean compressInMemory = compressor != null && config.isCompressInMemory();
+        if (config.getOffHeapMaxBytes() > 0) {
+            IValueCodec<TData> codec = config.getValueCodec();
+            if (compressInMemory) {
+                codec = new CompressedValueCodec<>(codec, compressor);
+            }
+            this.offHeapTier = new OffHeapTier<>(codec, config.getOffHeapSlabSize(),
+                config.getOffHeapMaxBytes(), config.getOffHeapHotSetSize());
+            this.compressCodec = null;
+        } else {
+            this.offHeapTier = null;
+            this.compressCodec = compressInMemory ? config.getValueCodec() : null;
+        }
+        this.hotKeys = config.getHotKeyTopK() > 0 ? new HotKeyTracker<>(config.getHotKeyTopK()) : null;
+        this.negativeCache = config.getNegativeTtl() > 0 ?
+            new NegativeCache<>(config.getNegativeTtl(), config.getNegativeMaxSize()) : null;
+        this.keyFilter = config.getKeyFilterExpectedKeys() > 0 ?
+            new KeyFilter<>(config.getKeyFilterExpectedKeys(), config.getKeyFilterFpp()) : null;
+        this.readBuffer = registry != null && (evictionPolicy != null || hotKeys != null) ? new ReadBuffer<>() : null;
+    }
+
+    /**
+     * 按配置的存储方式新建缓存项
+     */
+    CachedItem<TKey,TData> newItem(TKey key) {
+        if (offHeapTier != null) {
+            return new OffHeapCachedItem<>(key, offHeapTier);
+        } else if (compressCodec != null) {
+            return new CompressedCachedItem<>(key, compressCodec, compressor);
+        } else {
+            return new CachedItem<>(key);
+        }
+    }
+
+    /**
+     * 按配置计算一条缓存数据在容量限制中的权重
+     */
+    int weigh(CachedItem<TKey,TData> item) {
+        //未设置权重时不读取数据，压缩或堆外保存的数据读取时需要解码
+        return config.getMaximumWeight() > 0 ? config.getWeight(item.key, item.peekData()) : 1;
     }
 }
@@ -3,12 +3,20 @@ package net.arksea.acache;
 import akka.actor.ActorRef;
 import akka.actor.ActorSelection;
 import akka.dispatch.Mapper;
+import akka.dispatch.Recover;
 import akka.pattern.Patterns;
+import net.arksea.base.FutureUtils;
 import scala.concurrent.Await;
 import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static akka.japi.Util.classTag;
 
 /**
@@ -23,17 +31,43 @@ public class CacheAsker<K,V> implements ICacheAsker<K,V> {
     public final long timeout;
     public final ActorSelection cacheActor;
     public final ExecutionContext dispatcher;
+    private final Duration syncTimeout; //syncGet的等待时间
+    public final CacheRouting routing; //getAll拆分GetMulti请求的方式
+    //get()把DataResult转换为值，无状态，所有请求共用一个实例
+    private final Mapper<DataResult<K,V>,V> resultMapper = new Mapper<DataResult<K,V>,V>() {
+        public V apply(DataResult<K,V> ret) {
+            if (ret.failed == null) {
+                return ret.data;
+            } else {
+                throw new RuntimeException(ret.cacheName+"获取数据失败", ret.failed);
+            }
+        }
+    };
 
     public CacheAsker(ActorSelection cacheActor, ExecutionContext dispatcher, long timeout) {
+        this(cacheActor, dispatcher, timeout, CacheRouting.consistentHashingPool());
+    }
+
+    public CacheAsker(ActorSelection cacheActor, ExecutionContext dispatcher, long timeout, CacheRouting routing) {
         this.timeout = timeout;
         this.cacheActor = cacheActor;
         this.dispatcher = dispatcher;
+        this.routing = routing;
+        this.syncTimeout = Duration.create(timeout, "ms");
     }
 
     public void markDirty(K key) {
         cacheActor.tell(new MarkDirty<>(key), ActorRef.noSender());
     }
 
+    public void subscribe(K key, ActorRef subscriber) {
+        cacheActor.tell(new SubscribeData<>(key, subscriber), ActorRef.noSender());
+    }
+
+    public void unsubscribe(K key, ActorRef subscriber) {
+        cacheActor.tell(new UnsubscribeData<>(key, subscriber), ActorRef.noSender());
+    }
+
     public Future<DataResult<K,V>> ask(K key) {
         return ask(new GetData<>(key));
     }
@@ -56,16 +90,7 @@ public class CacheAsker<K,V> implements ICacheAsker<K,V> {
 
     public Future<V> get(ICacheRequest<K,V> req, long timeout) {
         Future<DataResult<K,V>> f = CacheActor.ask(cacheActor, req, timeout);
-        return f.map(
-            new Mapper<DataResult<K,V>,V>() {
-                public V apply(DataResult<K,V> ret) {
-                    if (ret.failed == null) {
-                        return ret.data;
-                    } else {
-                        throw new RuntimeException(ret.cacheName+"获取数据失败", ret.failed);
-                    }
-                }
-            }, dispatcher);
+        return f.map(resultMapper, dispatcher);
     }
 
     public Future<Integer> getSize(K key) {
@@ -73,6 +98,40 @@ public class CacheAsker<K,V> implements ICacheAsker<K,V> {
         return Patterns.ask(cacheActor, getSize, timeout).mapTo(classTag(Integer.class));
     }
 
+    public Future<Map<K,DataResult<K,V>>> getAll(Collection<K> keys) {
+        return getAll(keys, this.timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Future<Map<K,DataResult<K,V>>> getAll(Collection<K> keys, long timeout) {
+        return routing.split(cacheActor, keys, timeout, dispatcher).flatMap(
+            FutureUtils.mapper((List<CacheRouting.Group<K>> groups) -> {
+                List<Future<MultiDataResult<K,V>>> futures = new ArrayList<>(groups.size());
+                for (CacheRouting.Group<K> g : groups) {
+                    GetMulti<K,V> req = new GetMulti<>(g.keys);
+                    Future<Object> f = g.target == null ? Patterns.ask(cacheActor, req, timeout)
+                                                        : Patterns.ask(g.target, req, timeout);
+                    futures.add(f.mapTo(classTag((Class<MultiDataResult<K,V>>) (Class<?>) MultiDataResult.class))
+                        .recover(new Recover<MultiDataResult<K,V>>() {
+                            @Override
+                            public MultiDataResult<K,V> recover(Throwable ex) {
+                                routing.onGroupFailed();
+                                //请求未到达缓存，没有缓存名
+                                return MultiDataResult.failed(ex, null, g.keys);
+                            }
+                        }, dispatcher));
+                }
+                return FutureUtils.mapFutures(futures, dispatcher).map(
+                    FutureUtils.mapper((List<MultiDataResult<K,V>> list) -> {
+                        Map<K,DataResult<K,V>> map = new HashMap<>(keys.size());
+                        for (MultiDataResult<K,V> r : list) {
+                            map.putAll(r.results);
+                        }
+                        return map;
+                    }), dispatcher);
+            }), dispatcher);
+    }
+
     /**
      * 同步访问方法不应作为常规使用手段，建议用于测试或者少数特殊场景
      * @param key
@@ -83,8 +142,7 @@ public class CacheAsker<K,V> implements ICacheAsker<K,V> {
         DataResult<K, V> ret;
         try {
             Future<DataResult<K, V>> f = CacheActor.ask(cacheActor, new GetData(key), timeout);
-            Duration d = Duration.create(timeout, "ms");
-            ret = Await.result(f, d);
+            ret = Await.result(f, syncTimeout);
         } catch (Exception ex) {
             throw new CacheAskException("get cache failed", ex);
         }
@@ -0,0 +1,433 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ExtendedActorSystem;
+import akka.serialization.Serialization;
+import akka.serialization.SerializerWithStringManifest;
+
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * acache协议消息的Akka序列化器，代替默认的Java序列化，用于akka-remote与集群消息：
+ * 消息类型由manifest区分，字段按固定顺序用紧凑二进制格式写入，不带类描述信息；
+ * Key与数据使用配置项acache.serializer.value-codec指定的IValueCodec编码（需有无参构造函数），默认为BinaryValueCodec；
+ * DataResult的数据按其缓存的ICacheConfig.getCompressThreshold()压缩，接收方根据标记解压；
+ * 未知的消息类型（例如自定义的ICacheRequest）与DataResult中的异常仍使用Java序列化。
+ * 需要在application.conf中 include "acache-serialization" 才会绑定（见acache-serialization.conf），收发双方必须使用相同的value-codec
+ * Created by arksea on 2019/6/24.
+ */
+public class CacheMessageSerializer extends SerializerWithStringManifest {
+    public static final int IDENTIFIER = 73001;
+
+    private static final String GET_DATA = "A";
+    private static final String GET_RANGE = "B";
+    private static final String GET_SIZE = "C";
+    private static final String MARK_DIRTY = "D";
+    private static final String GET_MULTI = "E";
+    private static final String GET_LIST_SNAPSHOT = "F";
+    private static final String GET_LIST_DELTA = "G";
+    private static final String SUBSCRIBE = "H";
+    private static final String UNSUBSCRIBE = "I";
+    private static final String DATA_RESULT = "R";
+    private static final String LIST_SNAPSHOT_RESULT = "S";
+    private static final String LIST_DELTA_RESULT = "T";
+    private static final String MULTI_DATA_RESULT = "M";
+    private static final String DATA_PUSH = "P";
+    private static final String TIMED_DATA = "V";
+    private static final String INVALIDATION_BATCH = "X";
+    private static final String JAVA = "J";
+    private static final int DATA_RAW = 0;
+    private static final int DATA_LZ4 = 1;
+
+    private final ExtendedActorSystem system;
+    private final IValueCodec<Object> codec;
+    private final SerializableValueCodec<Object> javaCodec = new SerializableValueCodec<>();
+    private volatile ValueCompressor.Registry compressors; //第一次发送DataResult时取得，序列化器可能在Extension可用之前创建
+
+    public CacheMessageSerializer(ExtendedActorSystem system) {
+        this(system, createCodec(system.settings().config().getString("acache.serializer.value-codec")));
+    }
+
+    public CacheMessageSerializer(ExtendedActorSystem system, IValueCodec<Object> codec) {
+        this.system = system;
+        this.codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IValueCodec<Object> createCodec(String className) {
+        try {
+            return (IValueCodec<Object>) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("create acache value codec failed: " + className, ex);
+        }
+    }
+
+    @Override
+    public int identifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public String manifest(Object o) {
+        Class<?> c = o.getClass();
+        if (c == GetData.class) {
+            return GET_DATA;
+        } else if (c == DataResult.class) {
+            return DATA_RESULT;
+        } else if (c == GetRange.class) {
+            return GET_RANGE;
+        } else if (c == MarkDirty.class) {
+            return MARK_DIRTY;
+        } else if (c == GetSize.class) {
+            return GET_SIZE;
+        } else if (c == GetMulti.class) {
+            return GET_MULTI;
+        } else if (c == MultiDataResult.class) {
+            return MULTI_DATA_RESULT;
+        } else if (c == GetListSnapshot.class) {
+            return GET_LIST_SNAPSHOT;
+        } else if (c == ListSnapshotResult.class) {
+            return LIST_SNAPSHOT_RESULT;
+        } else if (c == GetListDelta.class) {
+            return GET_LIST_DELTA;
+        } else if (c == ListDeltaResult.class) {
+            return LIST_DELTA_RESULT;
+        } else if (c == TimedData.class) {
+            return TIMED_DATA;
+        } else if (c == DataPush.class) {
+            return DATA_PUSH;
+        } else if (c == SubscribeData.class) {
+            return SUBSCRIBE;
+        } else if (c == UnsubscribeData.class) {
+            return UNSUBSCRIBE;
+        } else if (c == InvalidationBatch.class) {
+            return INVALIDATION_BATCH;
+        } else {
+            return JAVA;
+        }
+    }
+
+    @Override
+    public byte[] toBinary(Object o) {
+        BinaryWriter out = new BinaryWriter(64);
+        write(out, manifest(o), o);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+        try {
+            return read(new BinaryReader(bytes), manifest);
+        } catch (IllegalArgumentException ex) {
+            NotSerializableException e = new NotSerializableException("decode acache message failed, manifest=" + manifest);
+            e.initCause(ex);
+            throw e;
+        }
+    }
+
+    //-------------------------------------------------------------------------------------
+    private void write(BinaryWriter out, String manifest, Object o) {
+        switch (manifest) {
+            case GET_DATA:
+                writeValue(out, ((GetData) o).key);
+                break;
+            case GET_RANGE: {
+                GetRange g = (GetRange) o;
+                writeValue(out, g.key);
+                out.writeVarInt(g.start);
+                out.writeVarInt(g.count);
+                out.writeSignedVarLong(g.version);
+                break;
+            }
+            case GET_SIZE:
+                writeValue(out, ((GetSize) o).key);
+                break;
+            case MARK_DIRTY:
+                writeValue(out, ((MarkDirty) o).key);
+                break;
+            case GET_MULTI:
+                writeValues(out, ((GetMulti) o).keys);
+                break;
+            case GET_LIST_SNAPSHOT: {
+                GetListSnapshot g = (GetListSnapshot) o;
+                writeValue(out, g.key);
+                out.writeVarInt(g.count);
+                break;
+            }
+            case GET_LIST_DELTA: {
+                GetListDelta g = (GetListDelta) o;
+                writeValue(out, g.key);
+                out.writeSignedVarLong(g.baseVersion);
+                out.writeVarInt(g.blockSize);
+                out.writeVarInt(g.blockHashes.length);
+                for (long h : g.blockHashes) {
+                    out.writeSignedVarLong(h);
+                }
+                out.writeVarInt(g.maxLiterals);
+                break;
+            }
+            case SUBSCRIBE: {
+                SubscribeData s = (SubscribeData) o;
+                writeValue(out, s.key);
+                writeActorRef(out, s.subscriber);
+                break;
+            }
+            case UNSUBSCRIBE: {
+                UnsubscribeData s = (UnsubscribeData) o;
+                writeValue(out, s.key);
+                writeActorRef(out, s.subscriber);
+                break;
+            }
+            case DATA_RESULT:
+                writeDataResult(out, (DataResult) o);
+                break;
+            case LIST_SNAPSHOT_RESULT: {
+                ListSnapshotResult r = (ListSnapshotResult) o;
+                writeDataResult(out, r);
+                out.writeVarInt(r.size);
+                break;
+            }
+            case LIST_DELTA_RESULT: {
+                ListDeltaResult r = (ListDeltaResult) o;
+                writeDataResult(out, r);
+                out.writeVarInt(r.size);
+                out.writeBoolean(r.unchanged);
+                if (r.ops == null) {
+                    out.writeVarInt(0);
+                } else {
+                    out.writeVarInt(r.ops.length + 1);
+                    for (int op : r.ops) {
+                        out.writeSignedVarInt(op);
+                    }
+                }
+                break;
+            }
+            case MULTI_DATA_RESULT: {
+                MultiDataResult<?,?> r = (MultiDataResult) o;
+                out.writeString(r.cacheName);
+                out.writeVarInt(r.results.size());
+                for (DataResult<?,?> d : r.results.values()) {
+                    out.writeString(manifest(d));
+                    write(out, manifest(d), d);
+                }
+                break;
+            }
+            case DATA_PUSH: {
+                DataResult d = ((DataPush) o).result;
+                out.writeString(manifest(d));
+                write(out, manifest(d), d);
+                break;
+            }
+            case TIMED_DATA: {
+                TimedData t = (TimedData) o;
+                out.writeSignedVarLong(t.time);
+                out.writeBoolean(t.removeOnExpired);
+                writeValue(out, t.data);
+                break;
+            }
+            case INVALIDATION_BATCH: {
+                InvalidationBatch b = (InvalidationBatch) o;
+                writeActorRef(out, b.origin);
+                writeValues(out, b.keys);
+                break;
+            }
+            default:
+                out.writeBytes(javaCodec.encode(o));
+                break;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object read(BinaryReader in, String manifest) throws NotSerializableException {
+        switch (manifest) {
+            case GET_DATA:
+                return new GetData<>(readValue(in), 0);
+            case GET_RANGE: {
+                Object key = readValue(in);
+                int start = in.readVarInt();
+                int count = in.readVarInt();
+                return new GetRange<>(key, start, count, in.readSignedVarLong());
+            }
+            case GET_SIZE:
+                return new GetSize<>(readValue(in));
+            case MARK_DIRTY:
+                return new MarkDirty<>(readValue(in));
+            case GET_MULTI:
+                return new GetMulti<>(readValues(in));
+            case GET_LIST_SNAPSHOT: {
+                Object key = readValue(in);
+                return new GetListSnapshot<>(key, in.readVarInt());
+            }
+            case GET_LIST_DELTA: {
+                Object key = readValue(in);
+                long baseVersion = in.readSignedVarLong();
+                int blockSize = in.readVarInt();
+                long[] hashes = new long[in.readVarInt()];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = in.readSignedVarLong();
+                }
+                return new GetListDelta<>(key, baseVersion, blockSize, hashes, in.readVarInt());
+            }
+            case SUBSCRIBE: {
+                Object key = readValue(in);
+                return new SubscribeData<>(key, readActorRef(in));
+            }
+            case UNSUBSCRIBE: {
+                Object key = readValue(in);
+                return new UnsubscribeData<>(key, readActorRef(in));
+            }
+            case DATA_RESULT:
+            case LIST_SNAPSHOT_RESULT:
+            case LIST_DELTA_RESULT:
+                return readDataResult(in, manifest);
+            case MULTI_DATA_RESULT: {
+                String cacheName = in.readString();
+                int n = in.readVarInt();
+                Map<Object, DataResult<Object,Object>> results = new HashMap<>(Math.min(n, 4096) * 4 / 3 + 1);
+                for (int i = 0; i < n; i++) {
+                    DataResult<Object,Object> d = (DataResult<Object,Object>) read(in, in.readString());
+                    results.put(d.key, d);
+                }
+                return new MultiDataResult<>(cacheName, results);
+            }
+            case DATA_PUSH:
+                return new DataPush<>((DataResult<Object,Object>) read(in, in.readString()));
+            case TIMED_DATA: {
+                long time = in.readSignedVarLong();
+                boolean removeOnExpired = in.readBoolean();
+                return new TimedData<>(time, readValue(in), removeOnExpired);
+            }
+            case INVALIDATION_BATCH: {
+                ActorRef origin = readActorRef(in);
+                return new InvalidationBatch<>(origin, readValues(in));
+            }
+            case JAVA:
+                return javaCodec.decode(in.readBytes());
+            default:
+                throw new NotSerializableException("unknown acache message manifest: " + manifest);
+        }
+    }
+
+    //-------------------------------------------------------------------------------------
+    private void writeDataResult(BinaryWriter out, DataResult r) {
+        out.writeString(r.cacheName);
+        writeValue(out, r.key);
+        out.writeSignedVarLong(r.expiredTime);
+        if (r.failed == null) {
+            out.writeBoolean(false);
+            writeData(out, r);
+        } else {
+            out.writeBoolean(true);
+            out.writeBytes(javaCodec.encode(r.failed));
+        }
+    }
+
+    private DataResult readDataResult(BinaryReader in, String manifest) {
+        String cacheName = in.readString();
+        Object key = readValue(in);
+        long time = in.readSignedVarLong();
+        if (in.readBoolean()) {
+            //失败的结果只有DataResult一种类型
+            return new DataResult<>((Throwable) javaCodec.decode(in.readBytes()), cacheName, key);
+        }
+        Object data = readData(in);
+        switch (manifest) {
+            case LIST_SNAPSHOT_RESULT:
+                return new ListSnapshotResult<>(cacheName, key, time, (List) data, in.readVarInt());
+            case LIST_DELTA_RESULT: {
+                int size = in.readVarInt();
+                boolean unchanged = in.readBoolean();
+                int n = in.readVarInt() - 1;
+                int[] ops = null;
+                if (n >= 0) {
+                    ops = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        ops[i] = in.readSignedVarInt();
+                    }
+                }
+                return new ListDeltaResult<>(cacheName, key, time, size, unchanged, ops, (List) data);
+            }
+            default:
+                return new DataResult<>(cacheName, key, time, data);
+        }
+    }
+
+    /**
+     * 写入DataResult的数据，第1字节标记是否压缩
+     */
+    private void writeData(BinaryWriter out, DataResult r) {
+        byte[] packed = r.compressedData;
+        if (packed != null) {
+            out.writeByte(DATA_LZ4);
+            out.writeBytes(packed);
+            return;
+        }
+        byte[] raw = r.data == null ? null : codec.encode(r.data);
+        ValueCompressor compressor = raw == null ? null : compressors().find(r.cacheName);
+        packed = compressor == null ? null : compressor.compress(raw);
+        if (packed == null) {
+            out.writeByte(DATA_RAW);
+            out.writeBytes(raw);
+        } else {
+            r.compressedData = packed;
+            out.writeByte(DATA_LZ4);
+            out.writeBytes(packed);
+        }
+    }
+
+    private ValueCompressor.Registry compressors() {
+        ValueCompressor.Registry r = compressors;
+        if (r == null) {
+            r = ValueCompressor.Registry.get(system);
+            compressors = r;
+        }
+        return r;
+    }
+
+    private Object readData(BinaryReader in) {
+        int flag = in.readByte();
+        byte[] bytes = in.readBytes();
+        if (bytes == null) {
+            return null;
+        }
+        return codec.decode(flag == DATA_LZ4 ? ValueCompressor.decompress(bytes) : bytes);
+    }
+
+    private void writeValue(BinaryWriter out, Object value) {
+        out.writeBytes(value == null ? null : codec.encode(value));
+    }
+
+    private Object readValue(BinaryReader in) {
+        byte[] bytes = in.readBytes();
+        return bytes == null ? null : codec.decode(bytes);
+    }
+
+    private void writeValues(BinaryWriter out, List<?> values) {
+        out.writeVarInt(values.size());
+        for (Object v : values) {
+            writeValue(out, v);
+        }
+    }
+
+    private List<Object> readValues(BinaryReader in) {
+        int n = in.readVarInt();
+        List<Object> list = new ArrayList<>(Math.min(n, 4096));
+        for (int i = 0; i < n; i++) {
+            list.add(readValue(in));
+        }
+        return list;
+    }
+
+    private void writeActorRef(BinaryWriter out, ActorRef ref) {
+        out.writeString(ref == null ? null : Serialization.serializedActorPath(ref));
+    }
+
+    private ActorRef readActorRef(BinaryReader in) {
+        String path = in.readString();
+        return path == null ? null : system.provider().resolveActorRef(path);
+    }
+}
@@ -0,0 +1,188 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSelection;
+import akka.actor.ActorSystem;
+import akka.actor.InternalActorRef;
+import akka.dispatch.Futures;
+import akka.dispatch.Recover;
+import akka.pattern.Patterns;
+import akka.routing.ActorRefRoutee;
+import akka.routing.ConsistentHashingRouter;
+import akka.routing.ConsistentHashingRoutingLogic;
+import akka.routing.GetRoutees;
+import akka.routing.Routee;
+import akka.routing.Routees;
+import net.arksea.base.FutureUtils;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static akka.japi.Util.classTag;
+
+/**
+ * 决定ICacheAsker.getAll如何把多个Key拆分成GetMulti请求，每个GetMulti中的Key必须属于同一个CacheActor：
+ * single()：缓存为单个CacheActor，所有Key合并为一个请求；
+ * byHashKey()：按consistentHashKey()分组，相同分组的Key一定路由到Pool中同一个实例，适用于无法获知Pool结构的情况，
+ *              普通的Key（String、Long等）每个Key一组，请求数与Key数相同；
+ * consistentHashingPool()：向缓存查询其实例列表（GetRoutees），按实例分组，每个实例一个请求；
+ *              缓存不是Pool时CacheActor回复空的实例列表，所有Key合并为一个请求；CacheAsker默认使用此方式
+ * Created by arksea on 2019/5/22.
+ */
+public abstract class CacheRouting {
+    private static final long ROUTEES_REFRESH_PERIOD = 60000; //Pool实例列表的刷新周期
+
+    /**
+     * 发给同一个目标的一组Key，target为null表示发给缓存的ActorSelection
+     */
+    public static final class Group<K> {
+        public final ActorRef target;
+        public final List<K> keys;
+        Group(ActorRef target, List<K> keys) {
+            this.target = target;
+            this.keys = keys;
+        }
+    }
+
+    public abstract <K> Future<List<Group<K>>> split(ActorSelection cacheActor, Collection<K> keys,
+                                                     long timeout, ExecutionContext dispatcher);
+
+    /**
+     * Pool实例的请求失败时调用，用于刷新缓存的Pool实例列表
+     */
+    public void onGroupFailed() {
+        //default donothing
+    }
+
+    public static CacheRouting single() {
+        return new CacheRouting() {
+            @Override
+            public <K> Future<List<Group<K>>> split(ActorSelection cacheActor, Collection<K> keys, long timeout, ExecutionContext dispatcher) {
+                List<Group<K>> groups = new ArrayList<>(1);
+                groups.add(new Group<>(null, new ArrayList<>(keys)));
+                return Futures.successful(groups);
+            }
+        };
+    }
+
+    public static CacheRouting byHashKey() {
+        return new CacheRouting() {
+            @Override
+            public <K> Future<List<Group<K>>> split(ActorSelection cacheActor, Collection<K> keys, long timeout, ExecutionContext dispatcher) {
+                return Futures.successful(groupByHashKey(keys));
+            }
+        };
+    }
+
+    private static <K> List<Group<K>> groupByHashKey(Collection<K> keys) {
+        Map<Object, List<K>> map = new LinkedHashMap<>();
+        for (K key : keys) {
+            Object hashKey = key instanceof ConsistentHashingRouter.ConsistentHashable
+                ? ((ConsistentHashingRouter.ConsistentHashable) key).consistentHashKey() : key;
+            map.computeIfAbsent(hashKey, k -> new ArrayList<>()).add(key);
+        }
+        List<Group<K>> groups = new ArrayList<>(map.size());
+        for (List<K> list : map.values()) {
+            groups.add(new Group<>(null, list));
+        }
+        return groups;
+    }
+
+    /**
+     * 用于CacheActor.propsOfCachePool创建的缓存，用与Pool相同的一致性哈希算法计算每个Key所在的实例
+     * @param system Asker所在的ActorSystem
+     */
+    public static CacheRouting consistentHashingPool(ActorSystem system) {
+        return new PoolRouting(system);
+    }
+
+    /**
+     * 同consistentHashingPool(system)，Asker所在的ActorSystem从缓存的ActorSelection取得
+     */
+    public static CacheRouting consistentHashingPool() {
+        return new PoolRouting(null);
+    }
+
+    private static final class PoolRouting extends CacheRouting {
+        private volatile ConsistentHashingRoutingLogic logic; //未指定ActorSystem时，第一次按实例分组时创建
+        private volatile Routees routees;
+        private volatile long routeesTime;
+        private volatile long byHashKeyUntil; //缓存未回复GetRoutees时，在此时间之前按consistentHashKey分组
+
+        PoolRouting(ActorSystem system) {
+            this.logic = system == null ? null : new ConsistentHashingRoutingLogic(system);
+        }
+
+        @Override
+        public <K> Future<List<Group<K>>> split(ActorSelection cacheActor, Collection<K> keys, long timeout, ExecutionContext dispatcher) {
+            long now = System.currentTimeMillis();
+            Routees r = routees;
+            if (r != null && now - routeesTime < ROUTEES_REFRESH_PERIOD) {
+                return Futures.successful(group(cacheActor, r, keys));
+            }
+            if (now < byHashKeyUntil) {
+                return Futures.successful(groupByHashKey(keys));
+            }
+            return Patterns.ask(cacheActor, GetRoutees.getInstance(), timeout)
+                .mapTo(classTag(Routees.class))
+                .map(FutureUtils.mapper(it -> {
+                    List<Group<K>> groups = group(cacheActor, it, keys);
+                    routees = it;
+                    routeesTime = System.currentTimeMillis();
+                    return groups;
+                }), dispatcher)
+                .recover(new Recover<List<Group<K>>>() {
+                    @Override
+                    public List<Group<K>> recover(Throwable ex) {
+                        //旧版本的非Pool缓存不回复GetRoutees，按consistentHashKey分组对Pool与非Pool都能正确路由
+                        byHashKeyUntil = System.currentTimeMillis() + ROUTEES_REFRESH_PERIOD;
+                        return groupByHashKey(keys);
+                    }
+                }, dispatcher);
+        }
+
+        @Override
+        public void onGroupFailed() {
+            routees = null;
+        }
+
+        private <K> List<Group<K>> group(ActorSelection cacheActor, Routees r, Collection<K> keys) {
+            if (r.getRoutees().isEmpty()) {
+                //不是Pool，所有Key发给缓存本身
+                List<Group<K>> groups = new ArrayList<>(1);
+                groups.add(new Group<>(null, new ArrayList<>(keys)));
+                return groups;
+            }
+            ConsistentHashingRoutingLogic logic = this.logic;
+            if (logic == null) {
+                logic = new ConsistentHashingRoutingLogic(systemOf(cacheActor));
+                this.logic = logic;
+            }
+            Map<Routee, List<K>> map = new LinkedHashMap<>();
+            for (K key : keys) {
+                Routee routee = logic.select(new GetData<>(key), r.routees());
+                map.computeIfAbsent(routee, k -> new ArrayList<>()).add(key);
+            }
+            List<Group<K>> groups = new ArrayList<>(map.size());
+            for (Map.Entry<Routee, List<K>> e : map.entrySet()) {
+                ActorRef target = e.getKey() instanceof ActorRefRoutee ? ((ActorRefRoutee) e.getKey()).ref() : null;
+                groups.add(new Group<>(target, e.getValue()));
+            }
+            return groups;
+        }
+
+        //ActorSelection没有公开其所在的ActorSystem，通过其anchor（本地或远程的根Actor）的provider取得
+        private static ActorSystem systemOf(ActorSelection cacheActor) {
+            ActorRef anchor = cacheActor.anchor();
+            if (anchor instanceof InternalActorRef) {
+                return ((InternalActorRef) anchor).provider().guardian().underlying().system();
+            }
+            throw new IllegalArgumentException("can not get ActorSystem of " + cacheActor + ", use CacheRouting.consistentHashingPool(system)");
+        }
+    }
+}
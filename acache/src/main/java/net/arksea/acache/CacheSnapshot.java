@@ -0,0 +1,199 @@
+package net.arksea.acache;
+
+import akka.Done;
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.CoordinatedShutdown;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import scala.compat.java8.FutureConverters;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存快照文件的读写：
+ * 写入时按顺序追加每条缓存（Key、过期时间、数据），写完后改名替换旧快照，保证快照文件总是完整的；
+ * 读取时用内存映射批量加载；
+ * 文件格式：MAGIC(int) VERSION(int) {keyLen(int) key expiredTime(long) removeOnExpired(byte) dataLen(int) data}*
+ * Created by arksea on 2019/6/12.
+ */
+final class CacheSnapshot {
+    private static final int MAGIC = 0x41434853; //"ACHS"
+    private static final int VERSION = 1;
+    private static final int MAX_MAP_SIZE = 1 << 30;
+
+    private CacheSnapshot() {}
+
+    interface Loader<TKey,TData> {
+        void load(TKey key, TimedData<TData> data);
+    }
+
+    /**
+     * 写入快照，items可以在写入期间被其他线程修改，读取失败的条目将被跳过
+     * @return 写入的条数
+     */
+    static <TKey,TData> int write(File file, Iterable<CachedItem<TKey,TData>> items,
+                                  IValueCodec<TKey> keyCodec, IValueCodec<TData> valueCodec) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("create cache snapshot directory failed: " + dir);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        int count = 0;
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (CachedItem<TKey,TData> item : items) {
+                TimedData<TData> data = item.tryPeekData();
+                if (data == null || data.data == null || data.time == 0) {
+                    continue;
+                }
+                byte[] key = keyCodec.encode(item.key);
+                byte[] value = valueCodec.encode(data.data);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeLong(data.time);
+                out.writeByte(data.removeOnExpired ? 1 : 0);
+                out.writeInt(value.length);
+                out.write(value);
+                count++;
+            }
+            //数据落盘后再改名，避免崩溃后留下改名成功但内容不完整的快照
+            out.flush();
+            fileOut.getChannel().force(true);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * 加载快照，文件不存在时返回0
+     * @return 加载的条数
+     */
+    static <TKey,TData> int load(File file, IValueCodec<TKey> keyCodec, IValueCodec<TData> valueCodec,
+                                 Loader<TKey,TData> loader) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        int count = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedReader in = new MappedReader(channel);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("invalid cache snapshot file: " + file);
+            }
+            while (in.hasRemaining()) {
+                TKey key = keyCodec.decode(in.readBytes(in.readInt()));
+                long time = in.readLong();
+                boolean removeOnExpired = in.readByte() == 1;
+                TData data = valueCodec.decode(in.readBytes(in.readInt()));
+                loader.load(key, new TimedData<>(time, data, removeOnExpired));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按窗口映射文件顺序读取，单个映射不超过1G
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+        private MappedByteBuffer buf;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        boolean hasRemaining() {
+            return position + (buf == null ? 0 : buf.position()) < size;
+        }
+
+        int readInt() throws IOException {
+            ensure(4);
+            return buf.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(8);
+            return buf.getLong();
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buf.get();
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            ensure(length);
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return bytes;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf != null && buf.remaining() >= n) {
+                return;
+            }
+            if (buf != null) {
+                position += buf.position();
+            }
+            if (n < 0 || position + n > size) {
+                throw new IOException("cache snapshot file truncated");
+            }
+            long window = Math.max(n, Math.min(MAX_MAP_SIZE, size - position));
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+        }
+    }
+
+    /**
+     * CacheActor停止时提交的最后一次快照写入；
+     * ActorSystem由CoordinatedShutdown终止时（包括JVM关闭时由shutdown hook触发的终止），
+     * 在actor-system-terminate阶段等待这些写入完成，最长等待该阶段的超时时间
+     */
+    static final class FinalWrites implements Extension {
+        private static final AbstractExtensionId<FinalWrites> ID = new AbstractExtensionId<FinalWrites>() {
+            @Override
+            public FinalWrites createExtension(ExtendedActorSystem system) {
+                return new FinalWrites(system);
+            }
+        };
+        private final Set<CompletableFuture<?>> writes = ConcurrentHashMap.newKeySet();
+
+        private FinalWrites(ActorSystem system) {
+            //CacheActor在ActorSystem终止时才停止并提交写入，所以先等终止完成
+            CoordinatedShutdown.lookup().get(system).addTask(CoordinatedShutdown.PhaseActorSystemTerminate(), "acache-final-snapshot",
+                () -> FutureConverters.toJava(system.whenTerminated())
+                    .thenCompose(t -> CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])))
+                    .thenApply(v -> Done.getInstance()));
+        }
+
+        /**
+         * 需在ActorSystem开始终止前调用一次，以便登记CoordinatedShutdown的任务
+         */
+        static FinalWrites get(ActorSystem system) {
+            return ID.get(system);
+        }
+
+        void add(CompletableFuture<?> write) {
+            writes.add(write);
+            write.whenComplete((v, ex) -> writes.remove(write));
+        }
+    }
+}
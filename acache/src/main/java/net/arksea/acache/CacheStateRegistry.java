@@ -0,0 +1,35 @@
+package net.arksea.acache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登记同一缓存（单实例或Pool的所有实例）的CacheActorState，供DirectCacheAsker在调用者线程直接读取缓存；
+ * CacheActor启动时登记自己的state，停止时注销，Actor重启后新的state会重新登记
+ * Created by arksea on 2019/5/10.
+ */
+public class CacheStateRegistry<TKey, TData> {
+    private final Set<CacheActorState<TKey,TData>> states = ConcurrentHashMap.newKeySet();
+
+    void register(CacheActorState<TKey,TData> state) {
+        states.add(state);
+    }
+
+    void unregister(CacheActorState<TKey,TData> state) {
+        states.remove(state);
+    }
+
+    /**
+     * 查找Key所在的state，Pool模式时Key只会保存在其中一个实例的state中
+     * @param key
+     * @return 未找到返回null
+     */
+    CacheActorState<TKey,TData> find(TKey key) {
+        for (CacheActorState<TKey,TData> s : states) {
+            if (s.cacheMap.containsKey(key)) {
+                return s;
+            }
+        }
+        return null;
+    }
+}
@@ -11,10 +11,19 @@ class CachedItem<TKey, TData> {
     private static final int MIN_RETRY_BACKOFF = 30000; //数据采集失败后的最小退避时间（毫秒）
     private static final Logger logger = LogManager.getLogger(CachedItem.class);
     public final TKey key;    //缓存的Key
-    TimedData<TData> timedData = new TimedData<TData>(0, null);   //缓存的数据
+    //timedData与lastRequestTime会被DirectCacheAsker在调用者线程访问，所以声明为volatile
+    volatile TimedData<TData> timedData = new TimedData<TData>(0, null);   //缓存的数据
     private long requestUpdateTime;  //请求更新的时间
-    private long lastRequestTime;    //最后一次访问时间
+    private volatile long lastRequestTime;    //最后一次访问时间
     private long retryBackoff = MIN_RETRY_BACKOFF; //发起更新请求的退避时间
+    private boolean restored; //数据从快照加载，尚未从数据源更新过
+    //命中时返回给请求者的DataResult，数据不变时重复使用，避免每次命中都新建；数据被替换或标记过期时清除
+    private volatile DataResult<TKey,TData> result;
+    private volatile long storeTime; //数据写入缓存的时间，与过期时间一起确定数据的有效期
+    //数据写入缓存后被读取的次数，DirectCacheAsker的线程也会累加，并发时不保证精确
+    private volatile int requestsSinceStore;
+    //本次写入的数据已经发起过提前刷新，数据被替换前不再重复发起
+    private volatile boolean refreshAheadRequested;
 
     public CachedItem(final TKey key) {
         this.key = key;
@@ -25,6 +34,7 @@ class CachedItem<TKey, TData> {
     //命名成这么长也是为了强调这一点 -_-!
     TimedData<TData> getDataAndUpdateLastRequestTime() {
         lastRequestTime = System.currentTimeMillis();
+        requestsSinceStore++;
         return timedData;
     }
 
@@ -34,16 +44,110 @@ class CachedItem<TKey, TData> {
 
     public void setData(TData other, long expiredTime) {
         if (expiredTime > this.timedData.time) {
-            logger.trace("setData(), expiredTime={}",expiredTime);
+            if (logger.isTraceEnabled()) {
+                logger.trace("setData(), expiredTime={}", expiredTime);
+            }
             //只有实效性更长的数据才会清除‘数据过期’的状态，并重置退避时间为最小值
             //这样就会有如下效果：
             //   当返回的数据非新数据，cache就会以退避时间周期性的尝试更新数据：3秒、6秒、12秒...
             //   当返回的数据为新数据，cache就会更新数据时间，重置退避时间周期
             this.retryBackoff = MIN_RETRY_BACKOFF;
-            this.timedData = new TimedData<>(expiredTime,other);
+            this.restored = false;
+            onStore();
+            storeData(new TimedData<>(expiredTime,other));
         }
     }
 
+    /**
+     * 保存从快照加载的数据，数据过期后即使waitForRespond()为true，也先用旧数据返回请求者
+     */
+    void restoreData(TimedData<TData> data) {
+        this.restored = true;
+        onStore();
+        storeData(data);
+    }
+
+    private void onStore() {
+        this.storeTime = System.currentTimeMillis();
+        this.requestsSinceStore = 0;
+        this.refreshAheadRequested = false;
+    }
+
+    boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * 保存新的数据，子类可以改变数据的存储方式（例如OffHeapCachedItem）
+     */
+    protected void storeData(TimedData<TData> data) {
+        this.timedData = data;
+        this.result = null;
+    }
+
+    /**
+     * 读取数据并转为返回给请求者的DataResult，会更新最后访问时间
+     */
+    DataResult<TKey,TData> getResultAndUpdateLastRequestTime(String cacheName) {
+        return toResult(cacheName, getDataAndUpdateLastRequestTime());
+    }
+
+    /**
+     * 供DirectCacheAsker在调用者线程读取，数据正在被CacheActor修改而无法读取时返回null
+     */
+    DataResult<TKey,TData> tryGetResultAndUpdateLastRequestTime(String cacheName) {
+        TimedData<TData> data = tryGetDataAndUpdateLastRequestTime();
+        return data == null ? null : toResult(cacheName, data);
+    }
+
+    /**
+     * 复用与data一致的DataResult，不一致时新建并保存；
+     * DirectCacheAsker的线程也会调用此方法，所以按内容判断能否复用，而不依赖清除的时机
+     */
+    protected DataResult<TKey,TData> toResult(String cacheName, TimedData<TData> data) {
+        DataResult<TKey,TData> r = result;
+        if (r == null || r.expiredTime != data.time || r.data != data.data) {
+            r = new DataResult<>(cacheName, key, data.time, data.data);
+            result = r;
+        }
+        return r;
+    }
+
+    /**
+     * 丢弃保存的DataResult，释放其引用的数据
+     */
+    void clearResult() {
+        result = null;
+    }
+
+    /**
+     * 读取数据但不更新最后访问时间，用于缓存的内部管理（自动更新判断、权重计算等）
+     */
+    TData peekData() {
+        return timedData.data;
+    }
+
+    /**
+     * 在CacheActor以外的线程读取数据但不更新最后访问时间（例如写快照），数据正在被修改而无法读取时返回null
+     */
+    TimedData<TData> tryPeekData() {
+        return timedData;
+    }
+
+    /**
+     * 供DirectCacheAsker在调用者线程读取数据，数据正在被CacheActor修改而无法读取时返回null
+     */
+    TimedData<TData> tryGetDataAndUpdateLastRequestTime() {
+        return getDataAndUpdateLastRequestTime();
+    }
+
+    /**
+     * 缓存项被移除时调用，释放数据占用的资源
+     */
+    void release() {
+        //default donothing
+    }
+
     public void onRequestUpdate(long maxRetryBackoff) {
         this.requestUpdateTime = System.currentTimeMillis();
         this.retryBackoff = Math.min((int) retryBackoff * 2, maxRetryBackoff);
@@ -54,6 +158,7 @@ class CachedItem<TKey, TData> {
      */
     public void markDirty() {
         timedData = new TimedData<TData>(0, timedData.data);
+        result = null;
     }
 
     public boolean isUpdateBackoff() {
@@ -64,6 +169,23 @@ class CachedItem<TKey, TData> {
         return System.currentTimeMillis() > timedData.time;
     }
 
+    /**
+     * 是否应提前刷新：数据未过期，但已进入有效期的最后ratio部分，
+     * 且写入后至少被读取了minRequests次，本次写入的数据也还没有发起过提前刷新
+     */
+    boolean isRefreshAheadDue(double ratio, int minRequests, long now) {
+        if (refreshAheadRequested || requestsSinceStore < minRequests) {
+            return false;
+        }
+        long expiredTime = timedData.time;
+        long lifetime = expiredTime - storeTime;
+        return lifetime > 0 && now <= expiredTime && now >= expiredTime - (long)(lifetime * ratio);
+    }
+
+    void onRefreshAhead() {
+        this.refreshAheadRequested = true;
+    }
+
     public long getLastRequestTime() {
         return lastRequestTime;
     }
@@ -0,0 +1,132 @@
+package net.arksea.acache;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 列表缓存的存储结构：不可变、按块保存、支持随机访问；
+ * subList返回共享数据块的视图，不复制数据，所以GetRange的开销只与返回的数量有关；
+ * 序列化时只写入视图范围内的元素（转为ArrayList）
+ * Created by arksea on 2019/6/14.
+ */
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final ChunkedList EMPTY = new ChunkedList<>(new Object[0][], 0, 0);
+
+    private final Object[][] chunks;
+    private final int offset;
+    private final int size;
+    //增量更新用的元素Hash与分块Hash，列表不可变，所以可以缓存
+    private transient volatile long[] elementHashes;
+    private transient volatile long[] blockHashes;
+    private transient volatile int blockHashSize;
+
+    private ChunkedList(Object[][] chunks, int offset, int size) {
+        this.chunks = chunks;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> ChunkedList<E> empty() {
+        return EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> ChunkedList<E> copyOf(Collection<? extends E> c) {
+        if (c instanceof ChunkedList) {
+            return (ChunkedList<E>) c;
+        }
+        Builder<E> b = new Builder<>();
+        b.addAll(c);
+        return b.build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int i = offset + index;
+        return (E) chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", Size: " + size);
+        }
+        return new ChunkedList<>(chunks, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    long[] blockHashes(int blockSize) {
+        long[] hashes = blockHashes;
+        if (hashes == null || blockHashSize != blockSize) {
+            hashes = ListDelta.blockHashes(this, blockSize);
+            blockHashSize = blockSize;
+            blockHashes = hashes;
+        }
+        return hashes;
+    }
+
+    long[] elementHashes() {
+        long[] hashes = elementHashes;
+        if (hashes == null) {
+            hashes = ListDelta.computeElementHashes(this);
+            elementHashes = hashes;
+        }
+        return hashes;
+    }
+
+    private Object writeReplace() {
+        return new ArrayList<>(this);
+    }
+
+    static final class Builder<E> {
+        private final List<Object[]> chunks = new ArrayList<>();
+        private Object[] current;
+        private int pos = CHUNK_SIZE;
+        private int size;
+
+        Builder<E> add(E e) {
+            if (pos == CHUNK_SIZE) {
+                current = new Object[CHUNK_SIZE];
+                chunks.add(current);
+                pos = 0;
+            }
+            current[pos++] = e;
+            size++;
+            return this;
+        }
+
+        Builder<E> addAll(Collection<? extends E> c) {
+            for (E e : c) {
+                add(e);
+            }
+            return this;
+        }
+
+        ChunkedList<E> build() {
+            if (size == 0) {
+                return empty();
+            }
+            Object[][] array = chunks.toArray(new Object[chunks.size()][]);
+            //最后一块去掉未使用的空间
+            array[array.length - 1] = Arrays.copyOf(current, pos);
+            return new ChunkedList<>(array, 0, size);
+        }
+    }
+}
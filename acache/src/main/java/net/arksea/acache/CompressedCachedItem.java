@@ -0,0 +1,104 @@
+package net.arksea.acache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 数据压缩保存的缓存项：数据编码后达到压缩阈值且能压缩时，只保存压缩后的字节，每次读取时再解压；
+ * 不保留解压后的数据，否则常被读取的缓存项同时占用压缩与解压两份内存，比不压缩还多
+ * Created by arksea on 2019/6/26.
+ */
+class CompressedCachedItem<TKey, TData> extends CachedItem<TKey, TData> {
+    private static final Logger logger = LogManager.getLogger(CompressedCachedItem.class);
+    private final IValueCodec<TData> codec;
+    private final ValueCompressor compressor;
+
+    /**
+     * 压缩保存的数据，与过期时间一起作为timedData保存，其他线程读取时两者一致
+     */
+    static final class Packed<TData> extends TimedData<TData> {
+        final byte[] bytes;
+        Packed(long time, byte[] bytes, boolean removeOnExpired) {
+            super(time, null, removeOnExpired);
+            this.bytes = bytes;
+        }
+    }
+
+    public CompressedCachedItem(final TKey key, IValueCodec<TData> codec, ValueCompressor compressor) {
+        super(key);
+        this.codec = codec;
+        this.compressor = compressor;
+    }
+
+    @Override
+    protected void storeData(TimedData<TData> data) {
+        if (data.data != null) {
+            byte[] bytes = compress(data.data);
+            if (bytes != null) {
+                super.storeData(new Packed<>(data.time, bytes, data.removeOnExpired));
+                return;
+            }
+        }
+        super.storeData(data);
+    }
+
+    /**
+     * 编码并压缩，数据无法编码或压缩后没有变小时返回null，不压缩保存；
+     * 在CacheActor中调用，编码异常不能抛出，否则Actor重启会丢失等待数据的请求
+     */
+    private byte[] compress(TData data) {
+        byte[] raw;
+        try {
+            raw = codec.encode(data);
+        } catch (RuntimeException ex) {
+            logger.warn("缓存数据编码失败，不压缩保存，key={}", key, ex);
+            return null;
+        }
+        return compressor.compress(raw);
+    }
+
+    @Override
+    public void markDirty() {
+        TimedData<TData> t = timedData;
+        if (t instanceof Packed) {
+            timedData = new Packed<>(0, ((Packed<TData>) t).bytes, false);
+            clearResult();
+        } else {
+            super.markDirty();
+        }
+    }
+
+    private TimedData<TData> unpack(TimedData<TData> t) {
+        if (!(t instanceof Packed)) {
+            return t;
+        }
+        Packed<TData> p = (Packed<TData>) t;
+        return new TimedData<>(p.time, codec.decode(ValueCompressor.decompress(p.bytes)), p.removeOnExpired);
+    }
+
+    @Override
+    TimedData<TData> getDataAndUpdateLastRequestTime() {
+        return unpack(super.getDataAndUpdateLastRequestTime());
+    }
+
+    @Override
+    TData peekData() {
+        return unpack(timedData).data;
+    }
+
+    @Override
+    TimedData<TData> tryPeekData() {
+        return unpack(timedData);
+    }
+
+    /**
+     * 压缩保存的数据不复用DataResult，以免解压后的数据一直被引用而无法回收
+     */
+    @Override
+    protected DataResult<TKey,TData> toResult(String cacheName, TimedData<TData> data) {
+        if (timedData instanceof Packed) {
+            return new DataResult<>(cacheName, key, data.time, data.data);
+        }
+        return super.toResult(cacheName, data);
+    }
+}
@@ -0,0 +1,39 @@
+package net.arksea.acache;
+
+import java.util.Arrays;
+
+/**
+ * 在另一个编解码的结果上按ValueCompressor压缩，用于堆外存储；
+ * 编码结果的第1字节标记是否压缩
+ * Created by arksea on 2019/6/26.
+ */
+final class CompressedValueCodec<TData> implements IValueCodec<TData> {
+    private static final byte RAW = 0;
+    private static final byte LZ4 = 1;
+    private final IValueCodec<TData> codec;
+    private final ValueCompressor compressor;
+
+    CompressedValueCodec(IValueCodec<TData> codec, ValueCompressor compressor) {
+        this.codec = codec;
+        this.compressor = compressor;
+    }
+
+    @Override
+    public byte[] encode(TData data) {
+        byte[] raw = codec.encode(data);
+        byte[] packed = compressor.compress(raw);
+        byte[] bytes = packed == null ? raw : packed;
+        byte[] out = new byte[bytes.length + 1];
+        out[0] = packed == null ? RAW : LZ4;
+        System.arraycopy(bytes, 0, out, 1, bytes.length);
+        return out;
+    }
+
+    @Override
+    public TData decode(byte[] bytes) {
+        if (bytes[0] == LZ4) {
+            return codec.decode(ValueCompressor.decompress(bytes, 1));
+        }
+        return codec.decode(Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+}
@@ -0,0 +1,15 @@
+package net.arksea.acache;
+
+import java.io.Serializable;
+
+/**
+ * 缓存服务推送给订阅者的数据更新
+ * Created by arksea on 2019/6/26.
+ */
+public class DataPush<TKey,TData> implements Serializable {
+    public final DataResult<TKey,TData> result;
+
+    public DataPush(DataResult<TKey,TData> result) {
+        this.result = result;
+    }
+}
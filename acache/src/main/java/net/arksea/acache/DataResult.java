@@ -7,11 +7,15 @@ import java.io.Serializable;
  * Created by arksea on 2016/11/17.
  */
 public class DataResult<TKey,TData> implements Serializable {
+    //固定为增加compressedData之前的隐式值，旧版本节点用Java序列化时可以互通
+    private static final long serialVersionUID = 8413841448147434025L;
     public final String cacheName;
     public final TKey key;
     public final TData data;
     public final long expiredTime;
     public final Throwable failed;
+    //CacheMessageSerializer压缩后的数据，同一个DataResult发送给多个接收者时只需压缩一次
+    transient volatile byte[] compressedData;
     public DataResult(String cacheName, TKey key, final long time, final TData data) {
         this.expiredTime = time;
         this.data = data;
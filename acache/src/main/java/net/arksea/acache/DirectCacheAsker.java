@@ -0,0 +1,106 @@
+package net.arksea.acache;
+
+import akka.actor.ActorSelection;
+import akka.dispatch.Futures;
+import net.arksea.base.FutureUtils;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 直接读取本进程内缓存的Asker：GetData请求命中未过期的缓存时，在调用者线程直接从CacheActorState读取返回，
+ * 不经过Actor的mailbox；未命中、已过期以及其他类型的请求仍然发给CacheActor处理。
+ * 只能用于与CacheActor在同一个进程内的缓存，CacheActor创建时需传入同一个CacheStateRegistry
+ * Created by arksea on 2019/5/10.
+ */
+public class DirectCacheAsker<K,V> extends CacheAsker<K,V> {
+    private final CacheStateRegistry<K,V> registry;
+
+    public DirectCacheAsker(ActorSelection cacheActor, ExecutionContext dispatcher, long timeout, CacheStateRegistry<K,V> registry) {
+        this(cacheActor, dispatcher, timeout, CacheRouting.consistentHashingPool(), registry);
+    }
+
+    public DirectCacheAsker(ActorSelection cacheActor, ExecutionContext dispatcher, long timeout, CacheRouting routing,
+                            CacheStateRegistry<K,V> registry) {
+        super(cacheActor, dispatcher, timeout, routing);
+        this.registry = registry;
+    }
+
+    @Override
+    public Future<DataResult<K,V>> ask(ICacheRequest<K,V> req, long timeout) {
+        DataResult<K,V> hit = readHit(req);
+        return hit == null ? super.ask(req, timeout) : Futures.successful(hit);
+    }
+
+    @Override
+    public Future<V> get(ICacheRequest<K,V> req, long timeout) {
+        DataResult<K,V> hit = readHit(req);
+        return hit == null ? super.get(req, timeout) : Futures.successful(hit.data);
+    }
+
+    @Override
+    public V syncGet(K key) throws CacheAskException {
+        DataResult<K,V> hit = readHit(key);
+        return hit == null ? super.syncGet(key) : hit.data;
+    }
+
+    @Override
+    public Future<Map<K,DataResult<K,V>>> getAll(Collection<K> keys, long timeout) {
+        Map<K,DataResult<K,V>> hits = new HashMap<>(keys.size());
+        List<K> others = new ArrayList<>();
+        for (K key : keys) {
+            DataResult<K,V> hit = readHit(key);
+            if (hit == null) {
+                others.add(key);
+            } else {
+                hits.put(key, hit);
+            }
+        }
+        if (others.isEmpty()) {
+            return Futures.successful(hits);
+        }
+        return super.getAll(others, timeout).map(FutureUtils.mapper(it -> {
+            hits.putAll(it);
+            return hits;
+        }), dispatcher);
+    }
+
+    /**
+     * 读取未过期的缓存数据，未命中或已过期返回null，由CacheActor处理
+     */
+    private DataResult<K,V> readHit(ICacheRequest<K,V> req) {
+        return req instanceof GetData ? readHit(req.getKey()) : null;
+    }
+
+    private DataResult<K,V> readHit(K key) {
+        final long startNanos = System.nanoTime();
+        CacheActorState<K,V> state = registry.find(key);
+        if (state == null) {
+            return null;
+        }
+        CachedItem<K,V> item = state.cacheMap.get(key);
+        if (item == null || item.isExpired()) {
+            return null;
+        }
+        DataResult<K,V> result = item.tryGetResultAndUpdateLastRequestTime(state.config.getCacheName());
+        if (result == null) {
+            return null;
+        }
+        double ratio = state.config.getRefreshAheadRatio();
+        if (ratio > 0 && item.isRefreshAheadDue(ratio, state.config.getRefreshAheadMinRequests(), System.currentTimeMillis())) {
+            return null; //需要提前刷新，交给CacheActor处理
+        }
+        if (state.readBuffer != null) {
+            state.readBuffer.offer(key);
+        }
+        state.hitStat.onRequest(key);
+        state.hitStat.onHit(key);
+        state.hitStat.onHitLatency(System.nanoTime() - startNanos);
+        return result;
+    }
+}
@@ -7,7 +7,10 @@ import akka.routing.ConsistentHashingRouter;
  * Created by arksea on 2016/11/17.
  */
 public class GetData<TKey,TData> implements ICacheRequest<TKey,TData> {
+    private static final long serialVersionUID = -6416914565754652000L; //0.7.x版本的隐式值，createNanos是transient字段，不影响兼容
     public final TKey key;
+    //创建时间，用于统计请求在CacheActor mailbox中的等待时间；跨进程传递后为0，不统计
+    final transient long createNanos;
 
     public TKey getKey() {
         return key;
@@ -15,6 +18,13 @@ public class GetData<TKey,TData> implements ICacheRequest<TKey,TData> {
 
     public GetData(TKey key) {
         this.key = key;
+        this.createNanos = System.nanoTime();
+    }
+
+    //反序列化时使用，跨进程传递的请求不统计mailbox等待时间
+    GetData(TKey key, long createNanos) {
+        this.key = key;
+        this.createNanos = createNanos;
     }
 
     @Override
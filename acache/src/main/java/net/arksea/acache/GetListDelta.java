@@ -0,0 +1,39 @@
+package net.arksea.acache;
+
+import akka.routing.ConsistentHashingRouter;
+
+import java.util.List;
+
+/**
+ * 请求列表相对于本地旧版本的增量，返回ListDeltaResult；
+ * blockHashes为旧列表按blockSize分块后每块的Hash，新元素超过maxLiterals时缓存服务不返回增量
+ * Created by arksea on 2019/6/20.
+ */
+public class GetListDelta<TKey> implements ICacheRequest<TKey,List> {
+    public final TKey key;
+    public final long baseVersion;
+    public final int blockSize;
+    public final long[] blockHashes;
+    public final int maxLiterals;
+
+    public GetListDelta(TKey key, long baseVersion, int blockSize, long[] blockHashes, int maxLiterals) {
+        this.key = key;
+        this.baseVersion = baseVersion;
+        this.blockSize = blockSize;
+        this.blockHashes = blockHashes;
+        this.maxLiterals = maxLiterals;
+    }
+
+    public TKey getKey() {
+        return key;
+    }
+
+    @Override
+    public Object consistentHashKey() {
+        if (key instanceof ConsistentHashingRouter.ConsistentHashable) {
+            return ((ConsistentHashingRouter.ConsistentHashable) key).consistentHashKey();
+        } else {
+            return key;
+        }
+    }
+}
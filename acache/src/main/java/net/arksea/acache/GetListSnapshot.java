@@ -0,0 +1,33 @@
+package net.arksea.acache;
+
+import akka.routing.ConsistentHashingRouter;
+
+import java.util.List;
+
+/**
+ * 一次请求列表的长度、版本（即过期时间）与前count个元素，返回ListSnapshotResult；
+ * 列表的其余部分用指定了版本的GetRange读取，保证各部分来自同一版本
+ * Created by arksea on 2019/6/18.
+ */
+public class GetListSnapshot<TKey> implements ICacheRequest<TKey,List> {
+    public final TKey key;
+    public final int count;
+
+    public GetListSnapshot(TKey key, int count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    public TKey getKey() {
+        return key;
+    }
+
+    @Override
+    public Object consistentHashKey() {
+        if (key instanceof ConsistentHashingRouter.ConsistentHashable) {
+            return ((ConsistentHashingRouter.ConsistentHashable) key).consistentHashKey();
+        } else {
+            return key;
+        }
+    }
+}
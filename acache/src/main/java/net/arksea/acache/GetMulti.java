@@ -0,0 +1,36 @@
+package net.arksea.acache;
+
+import akka.routing.ConsistentHashingRouter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 一次请求多个Key的数据，返回MultiDataResult；
+ * 所有Key必须属于接收此请求的同一个CacheActor，Pool模式时由ICacheAsker.getAll按实例拆分，
+ * Pool按第一个Key路由
+ * Created by arksea on 2019/5/22.
+ */
+public class GetMulti<TKey,TData> implements ICacheRequest<TKey,TData> {
+    public final List<TKey> keys;
+
+    public GetMulti(Collection<TKey> keys) {
+        this.keys = new ArrayList<>(new LinkedHashSet<>(keys));
+    }
+
+    public TKey getKey() {
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    @Override
+    public Object consistentHashKey() {
+        TKey key = getKey();
+        if (key instanceof ConsistentHashingRouter.ConsistentHashable) {
+            return ((ConsistentHashingRouter.ConsistentHashable) key).consistentHashKey();
+        } else {
+            return key;
+        }
+    }
+}
@@ -9,14 +9,22 @@ import java.util.List;
  * Created by xiaohaixing_dian91 on 2017/3/30.
  */
 public class GetRange<TKey> implements ICacheRequest<TKey,List> {
+    //与未声明serialVersionUID的旧版本保持一致，新旧节点之间仍可使用Java序列化通讯
+    private static final long serialVersionUID = -3674042450469651792L;
     public final TKey key;
     public final int start;
     public final int count;
+    public final long version; //列表版本（即过期时间），为0时不限定版本
 
     public GetRange(TKey key,int start,int count) {
+        this(key, start, count, 0);
+    }
+
+    public GetRange(TKey key,int start,int count,long version) {
         this.key = key;
         this.start = start;
         this.count = count;
+        this.version = version;
     }
 
     public TKey getKey() {
@@ -25,14 +33,14 @@ public class GetRange<TKey> implements ICacheRequest<TKey,List> {
 
     @Override
     public int hashCode() {
-        return key.hashCode() + start*31 + count*31;
+        return key.hashCode() + start*31 + count*31 + Long.hashCode(version);
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof GetRange) {
             GetRange g = (GetRange) o;
-            return start==g.start && count==g.count && this.key.equals(g.key);
+            return start==g.start && count==g.count && version==g.version && this.key.equals(g.key);
         } else {
             return false;
         }
@@ -0,0 +1,19 @@
+package net.arksea.acache;
+
+import java.io.Serializable;
+
+/**
+ * 热点Key的统计结果，requests为统计周期内的估算请求数（可能略大于实际值），misses为成为热点后记录的未命中数
+ * Created by arksea on 2019/7/1.
+ */
+public class HotKey<TKey> implements Serializable {
+    public final TKey key;
+    public final long requests;
+    public final long misses;
+
+    public HotKey(TKey key, long requests, long misses) {
+        this.key = key;
+        this.requests = requests;
+        this.misses = misses;
+    }
+}
@@ -0,0 +1,152 @@
+package net.arksea.acache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点Key统计：Count-Min Sketch估算每个Key的请求数，Space-Saving方式保留估算值最大的若干个Key；
+ * 候选Key按估算值保存在最小堆中，取最小值为O(1)，更新与替换为O(log k)；
+ * 内存占用固定，每次请求只需4次计数与一次Map查找；
+ * 只在CacheActor内部使用，非线程安全
+ * Created by arksea on 2019/7/1.
+ */
+final class HotKeyTracker<TKey> {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 2048;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int topK;
+    private final int capacity; //保留的候选Key数，多于topK以提高准确度
+    private final int[][] counters = new int[DEPTH][WIDTH];
+    private final Map<TKey, Entry<TKey>> monitored;
+    private final Entry<TKey>[] heap; //按requests排序的最小堆，heap[0]为候选中估算值最小的
+    private int heapSize;
+
+    HotKeyTracker(int topK) {
+        this.topK = topK;
+        this.capacity = topK * 4;
+        this.monitored = new HashMap<>(capacity * 2);
+        @SuppressWarnings("unchecked")
+        Entry<TKey>[] h = new Entry[capacity];
+        this.heap = h;
+    }
+
+    void onRequest(TKey key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int[] row = counters[i];
+            int index = index(hash, i);
+            int c = row[index];
+            if (c != Integer.MAX_VALUE) {
+                row[index] = ++c;
+            }
+            estimate = Math.min(estimate, c);
+        }
+        Entry<TKey> e = monitored.get(key);
+        if (e != null) {
+            //同一周期内计数只增不减，估算值只会变大，只需下沉
+            e.requests = estimate;
+            siftDown(e.heapIndex);
+        } else if (heapSize < capacity) {
+            e = new Entry<>(key, estimate);
+            monitored.put(key, e);
+            e.heapIndex = heapSize;
+            heap[heapSize++] = e;
+            siftUp(e.heapIndex);
+        } else if (estimate > heap[0].requests) {
+            monitored.remove(heap[0].key);
+            e = new Entry<>(key, estimate);
+            monitored.put(key, e);
+            e.heapIndex = 0;
+            heap[0] = e;
+            siftDown(0);
+        }
+    }
+
+    void onMiss(TKey key) {
+        Entry<TKey> e = monitored.get(key);
+        if (e != null) {
+            e.misses++;
+        }
+    }
+
+    /**
+     * 返回请求数最多的topK个Key，并清零开始下一个统计周期
+     */
+    List<HotKey<TKey>> drain() {
+        List<Entry<TKey>> list = new ArrayList<>(monitored.values());
+        list.sort((a, b) -> Integer.compare(b.requests, a.requests));
+        int n = Math.min(topK, list.size());
+        List<HotKey<TKey>> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Entry<TKey> e = list.get(i);
+            result.add(new HotKey<>(e.key, e.requests, e.misses));
+        }
+        for (int[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+        monitored.clear();
+        Arrays.fill(heap, 0, heapSize, null);
+        heapSize = 0;
+        return result;
+    }
+
+    private void siftUp(int i) {
+        Entry<TKey> e = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Entry<TKey> p = heap[parent];
+            if (p.requests <= e.requests) {
+                break;
+            }
+            place(p, i);
+            i = parent;
+        }
+        place(e, i);
+    }
+
+    private void siftDown(int i) {
+        Entry<TKey> e = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && heap[right].requests < heap[child].requests) {
+                child = right;
+            }
+            Entry<TKey> c = heap[child];
+            if (e.requests <= c.requests) {
+                break;
+            }
+            place(c, i);
+            i = child;
+        }
+        place(e, i);
+    }
+
+    private void place(Entry<TKey> e, int i) {
+        heap[i] = e;
+        e.heapIndex = i;
+    }
+
+    private static int index(int hash, int i) {
+        int h = (hash ^ SEEDS[i]) * SEEDS[(i + 1) & 3];
+        h ^= h >>> 16;
+        return h & (WIDTH - 1);
+    }
+
+    private static final class Entry<TKey> {
+        final TKey key;
+        int requests;
+        long misses;
+        int heapIndex;
+        Entry(TKey key, int requests) {
+            this.key = key;
+            this.requests = requests;
+        }
+    }
+}
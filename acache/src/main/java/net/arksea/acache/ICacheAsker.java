@@ -1,7 +1,19 @@
 package net.arksea.acache;
 
+import akka.actor.ActorRef;
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Recover;
+import net.arksea.base.FutureUtils;
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 /**
  *
  * Created by xiaohaixing on 2018/5/4.
@@ -25,6 +37,49 @@ public interface ICacheAsker<K,V> {
     Future<V> get(ICacheRequest<K,V> req, long timeout);
 
     Future<Integer> getSize(K key);
+
+    /**
+     * 一次获取多个Key的数据，Key按缓存实例拆分为GetMulti请求，
+     * 返回的Map包含每个Key的DataResult，单个Key失败时对应DataResult.failed不为null；
+     * 默认实现为逐个调用ask(key)，CacheAsker等实现会合并为GetMulti请求
+     * @param keys
+     * @return
+     */
+    default Future<Map<K, DataResult<K,V>>> getAll(Collection<K> keys) {
+        ExecutionContext ec = ExecutionContexts.fromExecutor(Runnable::run); //在完成回调的线程上直接合并结果
+        List<Future<DataResult<K,V>>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            futures.add(ask(key).recover(new Recover<DataResult<K,V>>() {
+                @Override
+                public DataResult<K,V> recover(Throwable ex) {
+                    //请求未到达缓存，没有缓存名
+                    return new DataResult<>(ex, null, key);
+                }
+            }, ec));
+        }
+        return FutureUtils.mapFutures(futures, ec).map(FutureUtils.mapper(list -> {
+            Map<K, DataResult<K,V>> map = new HashMap<>(keys.size());
+            Iterator<DataResult<K,V>> it = list.iterator();
+            for (K key : keys) {
+                map.put(key, it.next());
+            }
+            return map;
+        }), ec);
+    }
+
+    /**
+     * 订阅Key的数据更新，缓存服务的数据更新后会把新的数据以DataPush推送给subscriber；
+     * 默认不支持订阅，不做任何处理，subscriber只能在数据过期后重新请求得到更新
+     * @param key
+     * @param subscriber
+     */
+    default void subscribe(K key, ActorRef subscriber) {
+        //default donothing
+    }
+
+    default void unsubscribe(K key, ActorRef subscriber) {
+        //default donothing
+    }
     /**
      * 同步访问方法不应作为常规使用手段，建议用于测试或者少数特殊场景
      * @param key
@@ -20,6 +20,108 @@ public interface ICacheConfig<TKey> {
         return 0;
     };
 
+    /**
+     * 缓存的最大条数，超出时立即按W-TinyLFU策略淘汰访问频率低的数据，默认为0不限制；
+     * 设置了getMaximumWeight()时此设置无效
+     * @return
+     */
+    default long getMaximumSize() {
+        return 0;
+    }
+
+    /**
+     * 缓存数据的最大总权重，每条数据的权重由getWeight()计算，超出时立即按W-TinyLFU策略淘汰，默认为0不限制
+     * @return
+     */
+    default long getMaximumWeight() {
+        return 0;
+    }
+
+    /**
+     * 计算一条缓存数据的权重（例如估算的字节数），仅在getMaximumWeight()大于0时使用
+     * @return
+     */
+    default <TData> int getWeight(TKey key, TData data) {
+        return 1;
+    }
+
+    /**
+     * 堆外存储的最大字节数，大于0时缓存数据用getValueCodec()编码后保存在堆外直接内存中，
+     * 堆内只保留过期时间等元数据；堆外内存用满后新数据仍保存在堆内；默认为0，数据保存在堆内
+     * @return
+     */
+    default long getOffHeapMaxBytes() {
+        return 0;
+    }
+
+    /**
+     * 堆外内存按Slab分配，每个Slab的字节数（向上取2的幂），超过此大小的数据单独分配
+     * @return
+     */
+    default int getOffHeapSlabSize() {
+        return 4 * 1024 * 1024;
+    }
+
+    /**
+     * 堆外存储时，在堆内保留解码后数据的最近访问条数，为0时每次读取都需要解码
+     * @return
+     */
+    default int getOffHeapHotSetSize() {
+        return 1000;
+    }
+
+    /**
+     * 数据的编解码，用于堆外存储与内存中的压缩保存，默认使用Java序列化
+     * @return
+     */
+    default <TData> IValueCodec<TData> getValueCodec() {
+        return new SerializableValueCodec<>();
+    }
+
+    /**
+     * 数据编码后的字节数达到此值时用LZ4压缩（压缩后没有变小则不压缩），默认为0不压缩；
+     * 设置后经CacheMessageSerializer发送此缓存的DataResult时压缩数据，接收方自动解压
+     * @return
+     */
+    default int getCompressThreshold() {
+        return 0;
+    }
+
+    /**
+     * getCompressThreshold()大于0时，是否在缓存中（堆内或堆外）也压缩保存数据，读取时再解压；
+     * 堆内保存时每次写入缓存都需要用getValueCodec()编码以判断大小，只建议用于数据较大的缓存；默认为false
+     * @return
+     */
+    default boolean isCompressInMemory() {
+        return false;
+    }
+
+    /**
+     * Key的编解码，用于写缓存快照，默认使用Java序列化
+     * @return
+     */
+    default IValueCodec<TKey> getKeyCodec() {
+        return new SerializableValueCodec<>();
+    }
+
+    /**
+     * 缓存快照文件的保存目录，不为null时CacheActor定期把缓存数据（Key与数据均经过编码）写入快照文件，
+     * 重启时在提供服务前先从快照批量加载，已过期的数据先作为旧数据返回请求者，同时在后台更新；
+     * 默认为null，不写快照
+     * @return
+     */
+    default String getSnapshotDir() {
+        return null;
+    }
+
+    /**
+     * 写缓存快照的周期，单位毫秒，最短60秒；CacheActor停止时也会写一次快照
+     * @return
+     */
+    default long getSnapshotPeriod() {
+        return 600000;
+    }
+
     /**
      * 缓存过期是否自动更新, 使用IDataSource.isAutoUpdateExpiredData
      * @return
@@ -27,6 +129,11 @@ public interface ICacheConfig<TKey> {
     default <TData> boolean isAutoUpdateExpiredData(TKey key, TData data) {
         return false;
     };
+    /**
+     * 自动更新的检查周期，单位毫秒，为0时不自动更新；
+     * 需要自动更新的Key按各自的过期时间登记，每次检查只处理已过期的Key，所以可以设置得较短（最短1秒）
+     * @return
+     */
     default long getAutoUpdatePeriod() {
         return 0;
     };
@@ -48,10 +155,177 @@ public interface ICacheConfig<TKey> {
      * @return
      */
     default boolean waitForRespond() { return false; }
+
+    /**
+     * 提前刷新窗口，为数据有效期的比例（0~1），默认为0不提前刷新；
+     * 未过期的数据在有效期的最后这部分时间内被读取，且写入后的读取次数不少于getRefreshAheadMinRequests()，
+     * 将先用缓存数据返回请求者，同时异步向数据源请求新数据，使常用的Key在过期前就被替换，请求不会因过期而等待数据源
+     * @return
+     */
+    default double getRefreshAheadRatio() {
+        return 0;
+    }
+    /**
+     * 触发提前刷新所需的最少读取次数（从数据写入缓存开始计数），避免为很少访问的Key提前请求数据源
+     * @return
+     */
+    default int getRefreshAheadMinRequests() {
+        return 2;
+    }
+
+    /**
+     * 同一Key的并发数据请求会合并为一次IDataSource.request调用，
+     * 超过此时间（毫秒）仍未返回的请求将不再合并，后续请求会重新向数据源发起
+     * @return
+     */
+    default long getPendingRequestTimeout() {
+        return 30000;
+    }
+    /**
+     * 批量请求数据的最大Key数，大于1时未命中与更新的数据请求将合并后调用IDataSource.requestBatch，
+     * 默认为0，逐个调用IDataSource.request
+     * @return
+     */
+    default int getBatchRequestSize() {
+        return 0;
+    }
+    /**
+     * 数据源返回null（Key没有对应的数据）后，记住此Key不存在的时间，单位毫秒；
+     * 期间对此Key的请求由CacheActor直接通知请求者失败，不再调用数据源，MarkDirty或收到此Key的数据时清除；
+     * 默认为0，不缓存不存在的Key
+     * @return
+     */
+    default long getNegativeTtl() {
+        return 0;
+    }
+    /**
+     * 最多记住的不存在的Key数，超过时淘汰最早记录的，避免大量随机Key的请求占用过多内存
+     * @return
+     */
+    default int getNegativeMaxSize() {
+        return 100000;
+    }
+    /**
+     * Key过滤器（Bloom Filter）预计容纳的Key数，大于0时启用，默认为0不启用；
+     * 数据源通过AddFilterKeys消息批量加入全部有效的Key（例如启动时加载所有ID，之后增量加入新ID），
+     * 加载完成后，判定为不存在的Key由CacheActor直接通知请求者没有对应的数据，不新建缓存项也不调用数据源；
+     * 每个Key只占用几个bit，适合防止随机Key的扫描请求穿透到数据库
+     * @return
+     */
+    default long getKeyFilterExpectedKeys() {
+        return 0;
+    }
+    /**
+     * Key过滤器的误判率，即不存在的Key被判定为可能存在的比例，误判的Key按正常的未命中处理；
+     * 实际加入的Key多于getKeyFilterExpectedKeys()时误判率会升高
+     * @return
+     */
+    default double getKeyFilterFpp() {
+        return 0.01;
+    }
+
+    /**
+     * 批量请求数据的合并等待时间，单位毫秒，
+     * 第一个数据请求等待此时间或等到合并的Key数达到getBatchRequestSize()后，发起批量请求
+     * @return
+     */
+    default long getBatchRequestDelay() {
+        return 5;
+    }
+
+    /**
+     * LocalCacheCreator创建的本地缓存，是否在调用者线程直接读取命中的未过期缓存（见DirectCacheAsker），
+     * 而不经过CacheActor的mailbox，未命中与过期的请求仍由CacheActor处理
+     * @return
+     */
+    default boolean isDirectReadOnHit() { return false; }
+    /**
+     * 缓存失效广播的主题，基于akka-cluster的DistributedPubSub，需要ActorSystem以cluster方式启动；
+     * 不为null时，CacheActor收到的MarkDirty将合并后广播给订阅了同一主题的所有缓存（例如各节点LocalCacheCreator创建的本地缓存），
+     * 收到广播的缓存把对应数据标记为脏数据，下次请求时重新获取；
+     * 远程缓存服务建议设置waitForRespond()为true，使本地缓存失效后能直接取到新数据
+     * @return
+     */
+    default String getInvalidationTopic() {
+        return null;
+    }
+
+    /**
+     * 缓存失效广播的合并等待时间，单位毫秒
+     * @return
+     */
+    default long getInvalidationBatchDelay() {
+        return 100;
+    }
+
+    /**
+     * 每条缓存失效广播消息包含的最大Key数
+     * @return
+     */
+    default int getInvalidationBatchSize() {
+        return 1000;
+    }
+    /**
+     * LocalCacheCreator创建的本地缓存是否向缓存服务订阅所缓存Key的数据更新，
+     * 为true时缓存服务的数据更新后会主动推送给本地缓存，本地缓存的数据被清除时取消订阅
+     * @return
+     */
+    default boolean isSubscribeRemoteUpdate() { return false; }
+    /**
+     * 热点Key统计的数量，大于0时每个CacheActor（缓存池的每个实例）统计请求最多的Key，
+     * 按getHotKeyReportPeriod()的周期写日志并通过IHitStat.onHotKeys报告；默认为0，不统计
+     * @return
+     */
+    default int getHotKeyTopK() {
+        return 0;
+    }
+
+    /**
+     * 热点Key的统计与报告周期，单位毫秒
+     * @return
+     */
+    default long getHotKeyReportPeriod() {
+        return 60000;
+    }
     default List<TKey> getInitKeys() { return null; }
+    /**
+     * LocalCacheCreator创建的本地缓存初始化时，向缓存服务并发请求的最大数量
+     * @return
+     */
+    default int getInitConcurrency() {
+        return 64;
+    }
+
+    /**
+     * LocalCacheCreator创建的本地缓存初始化的总时限，单位毫秒，超时后未完成的Key不再等待，在访问时再加载
+     * @return
+     */
+    default long getInitDeadline() {
+        return 60000;
+    }
     //List类型的数据，在请求时会分多次请求，每次请求的量由此接口确定
     default int getListDataRequestSize() {
         return 20;
     }
+    /**
+     * 本地列表缓存更新时，用GetListSnapshot一次取得列表长度、版本与前N个元素，其余部分按同一版本分段读取；
+     * 设为0时使用GetSize与GetRange分别读取；旧版本的缓存服务不回复GetListSnapshot，请求超时后会在10分钟内自动改用GetSize与GetRange
+     * @return
+     */
+    default int getListSnapshotSize() {
+        return 1000;
+    }
+    /**
+     * 本地列表缓存增量更新的分块长度，大于0时用GetListDelta只读取相对于本地旧列表变化的部分；
+     * 变化的判断基于元素编码后的内容（不使用hashCode()），元素为非基本类型时需实现Serializable；默认为0，每次完整读取
+     * @return
+     */
+    default int getListDeltaBlockSize() {
+        return 0;
+    }
+    //List类型的数据分多次请求时，同时发出的最大请求数
+    default int getListDataRequestWindow() {
+        return 4;
+    }
 }
 
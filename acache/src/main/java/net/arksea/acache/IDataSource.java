@@ -1,10 +1,20 @@
 package net.arksea.acache;
 
 import akka.actor.ActorRef;
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Futures;
+import akka.dispatch.Recover;
+import net.arksea.base.FutureUtils;
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -17,6 +27,62 @@ public interface IDataSource<TKey, TData> {
      * @return 返回timeddata=null表示结果不缓存，返回failed给请求方
      */
     Future<TimedData<TData>> request(ActorRef cacheActor, String cacheName, TKey key);
+
+    /**
+     * 更新已缓存的数据时调用，current为当前缓存的数据（可能已过期），数据源可以据此只请求变化的部分；
+     * 默认调用request(cacheActor, cacheName, key)
+     * @param current
+     * @return
+     */
+    default Future<TimedData<TData>> request(ActorRef cacheActor, String cacheName, TKey key, TimedData<TData> current) {
+        return request(cacheActor, cacheName, key);
+    }
+
+    /**
+     * 批量请求数据，ICacheConfig.getBatchRequestSize()大于1时，CacheActor会把一段时间内的多个数据请求合并后调用此接口；
+     * current为其中已缓存的Key当前的数据（可能已过期），与request(cacheActor, cacheName, key, current)相同；
+     * 默认实现为逐个调用request(cacheActor, cacheName, key, current)，能批量查询的数据源（例如IN查询）应实现此接口；
+     * 部分Key失败时可以用PartialBatchException结束返回的Future，只有失败的Key按失败处理
+     * @param keys
+     * @param current 没有缓存数据的Key不在其中
+     * @return 返回的Map中没有对应值的Key表示数据不存在，按request()返回null的情况处理
+     */
+    default Future<Map<TKey, TimedData<TData>>> requestBatch(ActorRef cacheActor, String cacheName, Collection<TKey> keys,
+                                                             Map<TKey, TimedData<TData>> current) {
+        ExecutionContext ec = ExecutionContexts.fromExecutor(Runnable::run); //在完成回调的线程上直接合并结果
+        Map<TKey, Throwable> failures = new ConcurrentHashMap<>();
+        List<Future<TimedData<TData>>> futures = new ArrayList<>(keys.size());
+        for (TKey key : keys) {
+            Future<TimedData<TData>> f;
+            try {
+                f = request(cacheActor, cacheName, key, current.get(key));
+            } catch (Exception ex) {
+                f = Futures.failed(ex);
+            }
+            //单个Key的失败先记下，不让它使整批失败
+            futures.add(f.recover(new Recover<TimedData<TData>>() {
+                @Override
+                public TimedData<TData> recover(Throwable ex) {
+                    failures.put(key, ex);
+                    return null;
+                }
+            }, ec));
+        }
+        return FutureUtils.mapFutures(futures, ec).map(FutureUtils.mapper(list -> {
+            Map<TKey, TimedData<TData>> map = new HashMap<>(keys.size());
+            Iterator<TimedData<TData>> it = list.iterator();
+            for (TKey key : keys) {
+                TimedData<TData> data = it.next();
+                if (data != null) {
+                    map.put(key, data);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new PartialBatchException(map, failures);
+            }
+            return map;
+        }), ec);
+    }
     default void onRequestFailed(ActorRef cacheActor, String cacheName, TKey key) {}
     default void preStart(ActorRef cacheActor,String cacheName) {
         //default donothing
@@ -32,6 +98,12 @@ public interface IDataSource<TKey, TData> {
     default void afterDirtyMarked(ActorRef cacheActor, String cacheName, TKey key) {
         //default donothing
     }
+    /**
+     * 缓存数据被清除（空闲超时、过期删除或超出容量淘汰）后调用
+     */
+    default void afterItemRemoved(ActorRef cacheActor, String cacheName, TKey key) {
+        //default donothing
+    }
     @Deprecated
     default boolean isAutoUpdateExpiredData(TKey key, TData data) {
         return false;
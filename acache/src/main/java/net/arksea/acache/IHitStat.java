@@ -1,16 +1,31 @@
 package net.arksea.acache;
 
+import java.util.List;
+
 /**
  * 接口的实现注意保证线程安全，因为Pool模式时，接口方法会被不同的CacheActor调用
  * Created by xiaohaixing on 2019/2/21.
  */
 public interface IHitStat<Key> {
-    default void onRequest(Key key){} //请求, 请求数 = Hit + Expired + Miss
+    default void onRequest(Key key){} //请求, 请求数 = Hit + Expired + Miss + NegativeHit + KeyFiltered
     default void onHit(Key key){}     //命中
     default void onExpired(Key key){} //过期
     default void onMiss(Key key){}    //未命中
     default void onIdleRemoved(Key key){}    //闲置移除
     default void onExpiredRemoved(Key key){} //超时移除
+    default void onCoalesced(Key key){}      //合并到未返回的数据源请求上等待结果
+    default void onEvicted(Key key){}        //超出缓存容量淘汰
+    default void onRefreshAhead(Key key){}   //数据即将过期，提前向数据源请求更新
+    default void onNegativeHit(Key key){}    //请求的Key已知没有对应的数据，未调用数据源直接通知请求者
+    default void onKeyFiltered(Key key){}    //请求的Key不在Key过滤器中，未调用数据源直接通知请求者
     default void setSize(Object tag, long size) { //当Cache为多实例池时，用tag区分来自哪个实例
     }
+    default void setOffHeapSize(Object tag, long bytes) { //堆外存储占用的字节数，tag同setSize
+    }
+    default void onHitLatency(long nanos){}     //命中请求在CacheActor中（或DirectCacheAsker直接读取）的处理时间
+    default void onFillLatency(long nanos){}    //未命中或过期后，从发起数据请求到数据写入缓存的时间
+    default void onSourceLatency(long nanos){}  //IDataSource.request（或requestBatch）的耗时
+    default void onMailboxWait(long nanos){}    //GetData请求在CacheActor mailbox中的等待时间，只统计本进程发出的请求
+    default void onHotKeys(Object tag, List<HotKey<Key>> hotKeys){} //ICacheConfig.getHotKeyTopK()大于0时定期报告请求最多的Key，tag同setSize
+    default void onCompressed(long rawBytes, long compressedBytes){} //数据被压缩（写入缓存或远程发送时），压缩前与压缩后的字节数
 }
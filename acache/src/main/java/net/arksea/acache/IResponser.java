@@ -5,7 +5,11 @@ import net.arksea.dsf.service.ServiceRequest;
 import net.arksea.dsf.service.ServiceResponse;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 根据请求类型，和缓存的值，构造返回数据
@@ -36,7 +40,10 @@ class GetDataResponser implements IResponser<TimedData> {
     }
     @Override
     public void send(TimedData timedData, ActorRef sender) {
-        Object result = new DataResult<>(cacheName, get.key, timedData.time, timedData.data);
+        sendResult(new DataResult<>(cacheName, get.key, timedData.time, timedData.data), sender);
+    }
+    //命中时直接发送缓存项上复用的DataResult
+    void sendResult(DataResult result, ActorRef sender) {
         Object msg = request == null ?  result : new ServiceResponse(result, request);
         receiver.tell(msg, sender);
     }
@@ -61,10 +68,21 @@ class GetRangeResponser implements IResponser<TimedData<List>> {
     }
     @Override
     public void send(TimedData<List> timedData,ActorRef sender) {
-        int size = timedData.data.size();
+        if (get.version != 0 && get.version != timedData.time) {
+            failed(new ListVersionChangedException("list version changed: " + get.version + " -> " + timedData.time), sender);
+            return;
+        }
+        List data = timedData.data;
+        int size = data.size();
         int end = get.count > size - get.start ? size : get.start + get.count;
-        ArrayList list = get.start >= end ? new ArrayList<>(0)
-                         : new ArrayList(timedData.data.subList(get.start, end));
+        List list;
+        if (get.start >= end) {
+            list = new ArrayList<>(0);
+        } else if (data instanceof ChunkedList) {
+            list = data.subList(get.start, end); //共享数据块的不可变视图
+        } else {
+            list = new ArrayList(data.subList(get.start, end));
+        }
         Object result = new DataResult<>(cacheName, get.key, timedData.time,list);
         Object msg = request == null ?  result : new ServiceResponse(result, request);
         receiver.tell(msg, sender);
@@ -100,4 +118,118 @@ class GetSizeResponser implements IResponser<TimedData<List>> {
         Object msg = request == null ?  result : new ServiceResponse(result, request, false);
         receiver.tell(msg, sender);
     }
-}
\ No newline at end of file
+}
+
+class ListSnapshotResponser implements IResponser<TimedData<List>> {
+    ActorRef receiver;
+    String cacheName;
+    GetListSnapshot get;
+    ServiceRequest request;
+    public ListSnapshotResponser(GetListSnapshot get,ActorRef receiver,String cacheName,ServiceRequest request) {
+        this.get = get;
+        this.receiver = receiver;
+        this.cacheName = cacheName;
+        this.request = request;
+    }
+    @Override
+    public void send(TimedData<List> timedData, ActorRef sender) {
+        List data = timedData.data == null ? new ArrayList<>(0) : timedData.data;
+        int size = data.size();
+        int end = Math.min(size, Math.max(0, get.count));
+        List first = data instanceof ChunkedList ? data.subList(0, end) : new ArrayList(data.subList(0, end));
+        Object result = new ListSnapshotResult<>(cacheName, get.key, timedData.time, first, size);
+        Object msg = request == null ?  result : new ServiceResponse(result, request);
+        receiver.tell(msg, sender);
+    }
+    @Override
+    public void failed(Throwable ex,ActorRef sender) {
+        Object result = new DataResult<>(ex, cacheName, get.key);
+        Object msg = request == null ?  result : new ServiceResponse(result, request, false);
+        receiver.tell(msg, sender);
+    }
+}
+
+class ListDeltaResponser implements IResponser<TimedData<List>> {
+    ActorRef receiver;
+    String cacheName;
+    GetListDelta get;
+    ServiceRequest request;
+    public ListDeltaResponser(GetListDelta get,ActorRef receiver,String cacheName,ServiceRequest request) {
+        this.get = get;
+        this.receiver = receiver;
+        this.cacheName = cacheName;
+        this.request = request;
+    }
+    @Override
+    public void send(TimedData<List> timedData, ActorRef sender) {
+        List data = timedData.data == null ? new ArrayList<>(0) : timedData.data;
+        Object result;
+        if (get.baseVersion == timedData.time) {
+            result = new ListDeltaResult<>(cacheName, get.key, timedData.time, data.size(), true, null, null);
+        } else {
+            ListDelta.Diff diff = get.blockSize > 0 ? diff(data) : null;
+            result = diff == null ? new ListDeltaResult<>(cacheName, get.key, timedData.time, data.size(), false, null, null)
+                                  : new ListDeltaResult<>(cacheName, get.key, timedData.time, data.size(), false, diff.ops, diff.literals);
+        }
+        Object msg = request == null ?  result : new ServiceResponse(result, request);
+        receiver.tell(msg, sender);
+    }
+    //元素无法编码（计算Hash）时返回null，由请求方完整读取
+    private ListDelta.Diff diff(List data) {
+        try {
+            return ListDelta.diff(data, get.blockHashes, get.blockSize, get.maxLiterals);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+    @Override
+    public void failed(Throwable ex,ActorRef sender) {
+        Object result = new DataResult<>(ex, cacheName, get.key);
+        Object msg = request == null ?  result : new ServiceResponse(result, request, false);
+        receiver.tell(msg, sender);
+    }
+}
+
+/**
+ * 收集GetMulti中每个Key的结果，所有Key都返回后回复请求者；
+ * 各Key的结果可能在不同线程返回，所以用并发容器收集
+ */
+class GetMultiResponser {
+    ActorRef receiver;
+    String cacheName;
+    ServiceRequest request;
+    private final Map<Object, DataResult> results = new ConcurrentHashMap<>();
+    private final AtomicInteger remaining;
+    public GetMultiResponser(GetMulti get, ActorRef receiver, String cacheName, ServiceRequest request) {
+        this.receiver = receiver;
+        this.cacheName = cacheName;
+        this.request = request;
+        this.remaining = new AtomicInteger(get.keys.size());
+        if (get.keys.isEmpty()) {
+            reply(ActorRef.noSender());
+        }
+    }
+    public IResponser<TimedData> responser(Object key) {
+        return new IResponser<TimedData>() {
+            @Override
+            public void send(TimedData timedData, ActorRef sender) {
+                complete(key, new DataResult<>(cacheName, key, timedData.time, timedData.data), sender);
+            }
+            @Override
+            public void failed(Throwable ex, ActorRef sender) {
+                complete(key, new DataResult<>(ex, cacheName, key), sender);
+            }
+        };
+    }
+    private void complete(Object key, DataResult result, ActorRef sender) {
+        results.put(key, result);
+        if (remaining.decrementAndGet() == 0) {
+            reply(sender);
+        }
+    }
+    private void reply(ActorRef sender) {
+        Object result = new MultiDataResult(cacheName, new HashMap(results));
+        Object msg = request == null ?  result : new ServiceResponse(result, request);
+        receiver.tell(msg, sender);
+    }
+}
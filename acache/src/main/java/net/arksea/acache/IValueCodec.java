@@ -0,0 +1,10 @@
+package net.arksea.acache;
+
+/**
+ * 缓存数据的编解码，用于把数据序列化后保存在堆外内存等场合
+ * Created by arksea on 2019/6/3.
+ */
+public interface IValueCodec<TData> {
+    byte[] encode(TData data);
+    TData decode(byte[] bytes);
+}
@@ -0,0 +1,20 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 通过DistributedPubSub广播的缓存失效消息，一段时间内的多个MarkDirty合并为一条
+ * Created by arksea on 2019/6/24.
+ */
+public class InvalidationBatch<TKey> implements Serializable {
+    public final ActorRef origin; //发布者，收到自己发布的消息时忽略
+    public final List<TKey> keys;
+
+    public InvalidationBatch(ActorRef origin, List<TKey> keys) {
+        this.origin = origin;
+        this.keys = keys;
+    }
+}
@@ -0,0 +1,74 @@
+package net.arksea.acache;
+
+/**
+ * 有效Key的Bloom Filter：判定为不存在的Key一定不存在，判定为存在的Key有fpp的概率误判；
+ * 每个Key约占 -ln(fpp)/(ln2)^2 个bit（fpp=1%时约10个bit），加入的Key多于预计数量时误判率会升高；
+ * 数据源加载完全部Key之前（ready为false）所有Key都判定为可能存在；
+ * 只在CacheActor内部使用，非线程安全
+ * Created by arksea on 2019/7/4.
+ */
+final class KeyFilter<TKey> {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private boolean ready;
+
+    KeyFilter(long expectedKeys, double fpp) {
+        double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+        long m = (long) Math.ceil(-expectedKeys * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, Math.min(m, (long) Integer.MAX_VALUE * 64));
+        this.bits = new long[(int) ((m + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / expectedKeys * Math.log(2)));
+    }
+
+    void put(TKey key) {
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Key是否可能存在，为false时一定不存在
+     */
+    boolean mightContain(TKey key) {
+        if (!ready) {
+            return true;
+        }
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void setReady() {
+        this.ready = true;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    //hashCode只有32位，用64位混合函数（SplitMix64）展开，双重哈希 h1 + i*h2 得到各个bit的位置
+    private static long hash(Object key) {
+        return mix(key.hashCode() * 0x9E3779B97F4A7C15L);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,99 @@
+package net.arksea.acache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图（HDR风格的对数-线性分桶），单位微秒：
+ * 每个2的幂区间再分为32个子桶，相对误差约3%，最大记录约2^40微秒；
+ * 每个桶用LongAdder计数，多个CacheActor并发记录时不会互相争用
+ * Created by arksea on 2019/6/28.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXP = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXP + 1)) - 1;
+    private static final int BUCKETS = SUB_COUNT + (MAX_EXP - SUB_BITS + 1) * SUB_COUNT;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        counts[index(micros)].increment();
+    }
+
+    /**
+     * 取得从上次调用以来的统计并清零
+     */
+    public Snapshot snapshotAndReset() {
+        long[] array = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts[i].sumThenReset();
+            array[i] = c;
+            total += c;
+        }
+        return new Snapshot(array, total);
+    }
+
+    static int index(long v) {
+        if (v < SUB_COUNT) {
+            return v < 0 ? 0 : (int) v;
+        }
+        if (v > MAX_VALUE) {
+            v = MAX_VALUE;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) - SUB_COUNT;
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    //桶内的最大值
+    static long valueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exp = index / SUB_COUNT - 1 + SUB_BITS;
+        int sub = index % SUB_COUNT;
+        int shift = exp - SUB_BITS;
+        return ((long) (SUB_COUNT + sub) << shift) + (1L << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        public final long count;
+
+        private Snapshot(long[] counts, long count) {
+            this.counts = counts;
+            this.count = count;
+        }
+
+        /**
+         * @param p 百分位，取值0~1，例如0.99
+         * @return 微秒
+         */
+        public long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                sum += counts[i];
+                if (sum >= rank) {
+                    return valueOf(i);
+                }
+            }
+            return valueOf(counts.length - 1);
+        }
+    }
+}
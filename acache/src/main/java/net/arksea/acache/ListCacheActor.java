@@ -47,11 +47,21 @@ public class ListCacheActor<TKey> extends AbstractCacheActor<TKey,List> {
             handleGetRange((GetRange<TKey>) o, serviceRequest);
         } else if (o instanceof GetSize) {
             handleGetSize((GetSize<TKey>) o, serviceRequest);
+        } else if (o instanceof GetListSnapshot) {
+            handleGetListSnapshot((GetListSnapshot<TKey>) o, serviceRequest);
+        } else if (o instanceof GetListDelta) {
+            handleGetListDelta((GetListDelta<TKey>) o, serviceRequest);
         } else {
             super.onReceiveCacheMsg(o, serviceRequest);
         }
     }
 
+    //列表保存为ChunkedList，GetRange直接返回共享数据块的视图，无需遍历或复制前面的元素
+    @Override
+    protected List toStoredData(List data) {
+        return data == null ? null : ChunkedList.copyOf(data);
+    }
+
     //-------------------------------------------------------------------------------------
     protected void handleGetRange(final GetRange<TKey> req, ServiceRequest serviceRequest) {
         final String cacheName = state.config.getCacheName();
@@ -64,4 +74,16 @@ public class ListCacheActor<TKey> extends AbstractCacheActor<TKey,List> {
         GetSizeResponser responser = new GetSizeResponser(req, sender(), cacheName, serviceRequest);
         handleRequest(req, responser);
     }
+
+    protected void handleGetListSnapshot(final GetListSnapshot<TKey> req, ServiceRequest serviceRequest) {
+        final String cacheName = state.config.getCacheName();
+        ListSnapshotResponser responser = new ListSnapshotResponser(req, sender(), cacheName, serviceRequest);
+        handleRequest(req, responser);
+    }
+
+    protected void handleGetListDelta(final GetListDelta<TKey> req, ServiceRequest serviceRequest) {
+        final String cacheName = state.config.getCacheName();
+        ListDeltaResponser responser = new ListDeltaResponser(req, sender(), cacheName, serviceRequest);
+        handleRequest(req, responser);
+    }
 }
@@ -0,0 +1,170 @@
+package net.arksea.acache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列表的增量更新：
+ * 本地缓存把旧列表按固定长度分块，计算每块的Hash发给缓存服务；
+ * 缓存服务在新列表上用滚动Hash查找这些块（可以在任意位置，所以头部插入也能匹配后面的块），
+ * 返回由“复制旧列表第j块”与“新元素”组成的操作序列，本地缓存据此组装新列表，未变化的元素直接复用；
+ * 元素的Hash基于其编码后的内容（BinaryValueCodec：基本类型直接编码，其他类型使用Java序列化），不使用hashCode()，
+ * 因为常见的实体类只按ID实现hashCode，其他字段变化时hashCode不变；
+ * 内容相同但编码不同（例如元素顺序不同的HashMap）只会被当作新元素传输，不会导致本地列表错误
+ * Created by arksea on 2019/6/20.
+ */
+final class ListDelta {
+    private static final long PRIME = 0x100000001b3L;
+    private static final BinaryValueCodec CODEC = new BinaryValueCodec();
+
+    private ListDelta() {}
+
+    /**
+     * 计算差异的结果，ops中大于等于0的值表示复制旧列表的第ops[i]块，小于0的值表示从literals中依次取-ops[i]个元素
+     */
+    static final class Diff {
+        final int[] ops;
+        final List literals;
+        Diff(int[] ops, List literals) {
+            this.ops = ops;
+            this.literals = literals;
+        }
+    }
+
+    static long[] blockHashes(List list, int blockSize) {
+        long[] elements = elementHashes(list);
+        long[] hashes = new long[list.size() / blockSize];
+        for (int j = 0; j < hashes.length; j++) {
+            hashes[j] = hash(elements, j * blockSize, blockSize);
+        }
+        return hashes;
+    }
+
+    /**
+     * 各元素的Hash，ChunkedList不可变，由其缓存计算结果
+     */
+    static long[] elementHashes(List list) {
+        if (list instanceof ChunkedList) {
+            return ((ChunkedList) list).elementHashes();
+        }
+        return computeElementHashes(list);
+    }
+
+    static long[] computeElementHashes(List list) {
+        long[] hashes = new long[list.size()];
+        int i = 0;
+        for (Object e : list) {
+            hashes[i++] = elementHash(e);
+        }
+        return hashes;
+    }
+
+    /**
+     * 计算新列表相对于旧列表各块的差异，新元素超过maxLiterals时返回null
+     */
+    static Diff diff(List current, long[] baseHashes, int blockSize, int maxLiterals) {
+        Map<Long, Integer> index = new HashMap<>(baseHashes.length * 2);
+        for (int j = baseHashes.length - 1; j >= 0; j--) {
+            index.put(baseHashes[j], j);
+        }
+        long[] elements = elementHashes(current);
+        int n = elements.length;
+        long top = pow(PRIME, blockSize - 1); //窗口最前面元素的权重
+        List<Integer> ops = new ArrayList<>();
+        int literalCount = 0;
+        int literalStart = 0;
+        int p = 0;
+        long h = n >= blockSize ? hash(elements, 0, blockSize) : 0;
+        while (p + blockSize <= n) {
+            Integer j = index.get(h);
+            if (j != null) {
+                if (p > literalStart) {
+                    ops.add(literalStart - p);
+                }
+                ops.add(j);
+                p += blockSize;
+                literalStart = p;
+                if (p + blockSize <= n) {
+                    h = hash(elements, p, blockSize);
+                }
+            } else {
+                if (++literalCount > maxLiterals) {
+                    return null;
+                }
+                if (p + blockSize < n) {
+                    h = (h - elements[p] * top) * PRIME + elements[p + blockSize];
+                }
+                p++;
+            }
+        }
+        if (n - p + literalCount > maxLiterals) {
+            return null;
+        }
+        if (n > literalStart) {
+            ops.add(literalStart - n);
+        }
+        List literals = new ArrayList(literalCount + n - p);
+        int[] array = new int[ops.size()];
+        int pos = 0;
+        for (int i = 0; i < array.length; i++) {
+            int op = ops.get(i);
+            array[i] = op;
+            if (op >= 0) {
+                pos += blockSize;
+            } else {
+                literals.addAll(current.subList(pos, pos - op));
+                pos -= op;
+            }
+        }
+        return new Diff(array, literals);
+    }
+
+    /**
+     * 用旧列表与差异操作组装新列表
+     */
+    static ChunkedList apply(List base, int blockSize, int[] ops, List literals) {
+        ChunkedList.Builder builder = new ChunkedList.Builder();
+        int literalPos = 0;
+        for (int op : ops) {
+            if (op >= 0) {
+                builder.addAll(base.subList(op * blockSize, (op + 1) * blockSize));
+            } else {
+                builder.addAll(literals.subList(literalPos, literalPos - op));
+                literalPos -= op;
+            }
+        }
+        return builder.build();
+    }
+
+    private static long hash(long[] elements, int from, int length) {
+        long h = 0;
+        for (int i = from; i < from + length; i++) {
+            h = h * PRIME + elements[i];
+        }
+        return h;
+    }
+
+    /**
+     * 元素编码后字节的64位FNV-1a Hash，再经SplitMix64打散
+     */
+    private static long elementHash(Object e) {
+        byte[] bytes = CODEC.encode(e);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * PRIME;
+        }
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static long pow(long base, int exp) {
+        long r = 1;
+        for (int i = 0; i < exp; i++) {
+            r *= base;
+        }
+        return r;
+    }
+}
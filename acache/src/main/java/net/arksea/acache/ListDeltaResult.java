@@ -0,0 +1,21 @@
+package net.arksea.acache;
+
+import java.util.List;
+
+/**
+ * GetListDelta的返回结果，expiredTime为列表的版本号：
+ * unchanged为true表示列表版本与本地相同；ops为null表示变化太多，需要完整读取；
+ * 否则按ops组装新列表，ops中大于等于0的值表示复制旧列表的第ops[i]块，小于0的值表示从data中依次取-ops[i]个元素
+ * Created by arksea on 2019/6/20.
+ */
+public class ListDeltaResult<TKey> extends DataResult<TKey,List> {
+    public final int size;
+    public final boolean unchanged;
+    public final int[] ops;
+    public ListDeltaResult(String cacheName, TKey key, long time, int size, boolean unchanged, int[] ops, List literals) {
+        super(cacheName, key, time, literals);
+        this.size = size;
+        this.unchanged = unchanged;
+        this.ops = ops;
+    }
+}
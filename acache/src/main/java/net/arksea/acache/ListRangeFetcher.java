@@ -0,0 +1,129 @@
+package net.arksea.acache;
+
+import akka.dispatch.Futures;
+import akka.dispatch.OnComplete;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+import scala.concurrent.Promise;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分段读取远端列表缓存：同时最多有window个GetRange请求未完成，
+ * 各段按顺序追加到ChunkedList，先返回的后续段暂存到前面的段返回为止；
+ * 从ListSnapshotResult开始读取时，后续各段限定为快照的版本
+ * Created by arksea on 2019/6/17.
+ */
+final class ListRangeFetcher<TKey> {
+    private static final Logger logger = LogManager.getLogger(ListRangeFetcher.class);
+    private final ICacheAsker<TKey, List> asker;
+    private final TKey key;
+    private final int size;
+    private final int count;
+    private final int window;
+    private final long timeout;
+    private final ExecutionContext dispatcher;
+    private final Promise<TimedData<List>> promise = Futures.promise();
+    private final ChunkedList.Builder builder = new ChunkedList.Builder();
+    private final Map<Integer, DataResult<TKey, List>> arrived = new HashMap<>(); //先于前面的段返回的数据
+    private int offset;  //从此位置开始分段读取
+    private long version; //为0时不限定版本
+    private int rangeCount;
+    private int nextToSend;
+    private int nextToAppend;
+    private long expiredTime;
+    private boolean done;
+
+    ListRangeFetcher(ICacheAsker<TKey, List> asker, TKey key, int size, int count, int window,
+                     long timeout, ExecutionContext dispatcher) {
+        this.asker = asker;
+        this.key = key;
+        this.size = size;
+        this.count = count;
+        this.window = Math.max(1, window);
+        this.timeout = timeout;
+        this.dispatcher = dispatcher;
+    }
+
+    Future<TimedData<List>> fetch() {
+        return fetch(0);
+    }
+
+    /**
+     * 以快照中的数据作为列表开头，按快照的版本读取其余部分
+     */
+    Future<TimedData<List>> fetch(ListSnapshotResult<TKey> snapshot) {
+        synchronized (this) {
+            builder.addAll(snapshot.data);
+            expiredTime = snapshot.expiredTime;
+            version = snapshot.expiredTime;
+        }
+        return fetch(snapshot.data.size());
+    }
+
+    private synchronized Future<TimedData<List>> fetch(int offset) {
+        this.offset = offset;
+        this.rangeCount = (size - offset + count - 1) / count;
+        if (rangeCount <= 0) {
+            complete();
+        } else {
+            sendRequests();
+        }
+        return promise.future();
+    }
+
+    //调用者需持有锁；请求结果在dispatcher上回调，不会在此重入
+    private void sendRequests() {
+        while (nextToSend < rangeCount && nextToSend - nextToAppend < window) {
+            final int index = nextToSend++;
+            GetRange<TKey> getRange = new GetRange<>(key, offset + index * count, count, version);
+            asker.ask(getRange, timeout).onComplete(new OnComplete<DataResult<TKey, List>>() {
+                @Override
+                public void onComplete(Throwable failure, DataResult<TKey, List> result) {
+                    onRange(index, failure, result);
+                }
+            }, dispatcher);
+        }
+    }
+
+    private synchronized void onRange(int index, Throwable failure, DataResult<TKey, List> result) {
+        if (done) {
+            return;
+        }
+        if (failure == null && result.failed != null) {
+            failure = result.failed instanceof ListVersionChangedException ? result.failed
+                : new CacheSourceException("remote cache server error", result.failed);
+        }
+        if (failure != null) {
+            done = true;
+            arrived.clear();
+            promise.failure(failure);
+            return;
+        }
+        arrived.put(index, result);
+        DataResult<TKey, List> next;
+        while ((next = arrived.remove(nextToAppend)) != null) {
+            if (nextToAppend == 0 && offset == 0) {
+                expiredTime = next.expiredTime;
+            }
+            builder.addAll(next.data);
+            nextToAppend++;
+        }
+        if (nextToAppend == rangeCount) {
+            complete();
+        } else {
+            sendRequests();
+        }
+    }
+
+    private void complete() {
+        done = true;
+        List data = builder.build();
+        logger.debug("更新本地缓存完成：key={}, size={}", key, data.size());
+        promise.success(new TimedData<>(expiredTime, data));
+    }
+}
@@ -0,0 +1,16 @@
+package net.arksea.acache;
+
+import java.util.List;
+
+/**
+ * GetListSnapshot的返回结果，data为列表的前若干个元素，size为列表总长度，
+ * expiredTime同时作为列表的版本号
+ * Created by arksea on 2019/6/18.
+ */
+public class ListSnapshotResult<TKey> extends DataResult<TKey,List> {
+    public final int size;
+    public ListSnapshotResult(String cacheName, TKey key, long time, List data, int size) {
+        super(cacheName, key, time, data);
+        this.size = size;
+    }
+}
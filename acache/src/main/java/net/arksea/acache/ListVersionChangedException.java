@@ -0,0 +1,11 @@
+package net.arksea.acache;
+
+/**
+ * 指定了版本的GetRange请求，缓存中的列表已更新为其他版本
+ * Created by arksea on 2019/6/18.
+ */
+public class ListVersionChangedException extends CacheAskException {
+    public ListVersionChangedException(String message) {
+        super(message);
+    }
+}
@@ -1,24 +1,34 @@
 package net.arksea.acache;
 
+import akka.actor.ActorContext;
 import akka.actor.ActorRef;
 import akka.actor.ActorRefFactory;
 import akka.actor.ActorSelection;
+import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.dispatch.Futures;
 import akka.dispatch.Mapper;
+import akka.dispatch.OnComplete;
+import akka.dispatch.Recover;
 import akka.routing.ConsistentHashingRouter;
-import net.arksea.base.FutureUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import scala.concurrent.Await;
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
+import scala.concurrent.Promise;
 import scala.concurrent.duration.Duration;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
@@ -28,6 +38,9 @@ import java.util.function.Function;
 public class LocalCacheCreator {
     private static final Logger logger = LogManager.getLogger(LocalCacheCreator.class);
     private static final int LOCAL_ASKER_DELAY = 100; //asker 需要比source多一些的超时时间用于返回本地数据
+    private static final int LIST_SNAPSHOT_RETRY = 3; //读取列表期间版本变化的最大重试次数
+    private static final long LIST_SNAPSHOT_FALLBACK_PERIOD = 600000; //GetListSnapshot超时后改用GetSize与GetRange的时间
+    private static final long SUBSCRIBE_RENEW_PERIOD = 300000; //已订阅的Key在更新时重新订阅的周期，缓存服务重启后可以恢复订阅
     private static final AtomicLong DEFAULT_EXPIRED_SECONDS = new AtomicLong(300); //默认空数组过期时间5分钟
     public static final void setDefaultExpiredSeconds(long sec) {
         DEFAULT_EXPIRED_SECONDS.set(sec);
@@ -37,7 +50,8 @@ public class LocalCacheCreator {
                                                                        final ICacheAsker<TKey, TData> remoteCacheAsker,
                                                                        int timeout, int initTimeout) {
         return createLocalCache(actorRefFactory, localCacheConfig, remoteCacheAsker, timeout,initTimeout,
-            (source) -> CacheActor.props(localCacheConfig, source)
+            (source, registry) -> CacheActor.props(localCacheConfig, source, new IHitStat<TKey>() {}, registry),
+            CacheRouting.single()
         );
     }
     @Deprecated
@@ -59,7 +73,8 @@ public class LocalCacheCreator {
                                                   final ICacheAsker<TKey, TData> remoteCacheAsker,
                                                   int timeout, int initTimeout) {
         return createLocalCache(actorRefFactory, localCacheConfig, remoteCacheAsker, timeout,initTimeout,
-            (source) -> CacheActor.propsOfCachePool(poolSize, localCacheConfig, source)
+            (source, registry) -> CacheActor.propsOfCachePool(poolSize, localCacheConfig, source, new IHitStat<TKey>() {}, registry),
+            poolRouting(actorRefFactory)
         );
     }
 
@@ -81,12 +96,30 @@ public class LocalCacheCreator {
                                                                        ICacheConfig<TKey> localCacheConfig,
                                                                        final ICacheAsker<TKey, TData> remoteCacheAsker,
                                                                        int timeout, int initTimeout,
-                                                                       Function<IDataSource,Props> localCacheProps) {
+                                                                       BiFunction<IDataSource,CacheStateRegistry,Props> localCacheProps,
+                                                                       CacheRouting routing) {
         IDataSource localCacheSource = createLocalCacheSource(actorRefFactory,localCacheConfig,remoteCacheAsker,timeout, initTimeout);
-        ActorRef localCachePool = actorRefFactory.actorOf(localCacheProps.apply(localCacheSource), localCacheConfig.getCacheName());
+        //直接读取模式时，由registry登记CacheActor的state，供DirectCacheAsker读取
+        CacheStateRegistry<TKey,TData> registry = localCacheConfig.isDirectReadOnHit() ? new CacheStateRegistry<>() : null;
+        ActorRef localCachePool = actorRefFactory.actorOf(localCacheProps.apply(localCacheSource, registry), localCacheConfig.getCacheName());
         logger.info("Create local cache at：{}",localCachePool.path());
         ActorSelection sel = actorRefFactory.actorSelection(localCachePool.path());
-        return new CacheAsker<>(sel, actorRefFactory.dispatcher(), timeout+LOCAL_ASKER_DELAY);
+        if (registry == null) {
+            return new CacheAsker<>(sel, actorRefFactory.dispatcher(), timeout+LOCAL_ASKER_DELAY, routing);
+        } else {
+            return new DirectCacheAsker<>(sel, actorRefFactory.dispatcher(), timeout+LOCAL_ASKER_DELAY, routing, registry);
+        }
+    }
+
+    //本地缓存Pool与Asker在同一个ActorSystem，可以按Pool实例拆分getAll请求
+    private static CacheRouting poolRouting(ActorRefFactory actorRefFactory) {
+        if (actorRefFactory instanceof ActorSystem) {
+            return CacheRouting.consistentHashingPool((ActorSystem) actorRefFactory);
+        } else if (actorRefFactory instanceof ActorContext) {
+            return CacheRouting.consistentHashingPool(((ActorContext) actorRefFactory).system());
+        } else {
+            return CacheRouting.consistentHashingPool();
+        }
     }
 
     private static <TKey,TData> IDataSource createLocalCacheSource(ActorRefFactory actorRefFactory,
@@ -95,28 +128,34 @@ public class LocalCacheCreator {
                                                                   int timeout, int initTimeout) {
         //本地缓存向缓存服务请求数据
         return new IDataSource<TKey,TData>() {
+            //已向缓存服务订阅的Key
+            private final Map<TKey, Subscription> subscriptions = new ConcurrentHashMap<>();
             @Override
             public Future<TimedData<TData>> request(ActorRef cacheActor, String cacheName, TKey key) {
+                if (localCacheConfig.isSubscribeRemoteUpdate()) {
+                    subscribe(cacheActor, key);
+                }
                 return request(key, timeout);
             }
-            public Map<TKey, TimedData<TData>> initCache(List<TKey> keys) {
-                if (keys != null && !keys.isEmpty()) {
-                    Map<TKey, TimedData<TData>> map = new LinkedHashMap<>(keys.size());
-                    for (TKey key : keys) {
-                        try {
-                            Future<TimedData<TData>> f = request(key, initTimeout);
-                            Duration d = Duration.create(initTimeout,"ms");
-                            TimedData<TData> v = Await.result(f, d);
-                            map.put(key, v);
-                        } catch (Exception ex) {
-                            logger.warn("本地缓存({})加载失败:key={}",localCacheConfig.getCacheName(), key.toString(), ex);
-                        }
-                    }
-                    return map;
-                } else {
-                    return null;
+            @Override
+            public void afterItemRemoved(ActorRef cacheActor, String cacheName, TKey key) {
+                if (localCacheConfig.isSubscribeRemoteUpdate()) {
+                    subscriptions.remove(key);
+                    remoteCacheAsker.unsubscribe(key, cacheActor);
                 }
             }
+            //已订阅的Key不在每次更新时重复订阅，超过SUBSCRIBE_RENEW_PERIOD后重新订阅一次，缓存服务重启后也能恢复订阅
+            private void subscribe(ActorRef cacheActor, TKey key) {
+                long now = System.currentTimeMillis();
+                Subscription s = subscriptions.get(key);
+                if (s == null || !s.subscriber.equals(cacheActor) || now - s.time >= SUBSCRIBE_RENEW_PERIOD) {
+                    subscriptions.put(key, new Subscription(cacheActor, now));
+                    remoteCacheAsker.subscribe(key, cacheActor);
+                }
+            }
+            public Map<TKey, TimedData<TData>> initCache(List<TKey> keys) {
+                return initCacheParallel(localCacheConfig, keys, key -> request(key, initTimeout), actorRefFactory.dispatcher());
+            }
             private Future<TimedData<TData>> request(TKey key, long timeout1) {
                 GetData<TKey,TData> get = new GetData<>(key);
                 return remoteCacheAsker.ask(get,timeout1).map(
@@ -136,6 +175,143 @@ public class LocalCacheCreator {
         };
     }
 
+    /**
+     * 并发加载初始化数据：最多同时发出getInitConcurrency()个请求，总时间不超过getInitDeadline()，
+     * 超时或失败的Key不放入结果，在访问时再加载；
+     * 每个请求完成时在回调中发出下一个请求，调用线程只在最后等待一次全部完成
+     */
+    private static <TKey,TData> Map<TKey, TimedData<TData>> initCacheParallel(ICacheConfig<TKey> config, List<TKey> keys,
+                                                                              Function<TKey, Future<TimedData<TData>>> request,
+                                                                              ExecutionContext dispatcher) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        final String cacheName = config.getCacheName();
+        final int concurrency = Math.max(1, config.getInitConcurrency());
+        final long start = System.currentTimeMillis();
+        final long deadline = start + config.getInitDeadline();
+        final int total = keys.size();
+        logger.info("本地缓存({})开始初始化，共{}项，并发数{}", cacheName, total, concurrency);
+        InitLoader<TKey,TData> loader = new InitLoader<>(cacheName, keys, request, deadline, dispatcher);
+        loader.start(concurrency);
+        try {
+            //Await会通知线程池当前线程被阻塞，请求的回调可以在其他线程执行
+            Await.ready(loader.completed.future(), Duration.create(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException ex) {
+            //超时的请求不再等待
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        int done = loader.finished.get();
+        if (done < total) {
+            logger.warn("本地缓存({})初始化超时，已发出{}项请求，完成{}项，未完成的Key将在访问时加载", cacheName, loader.issued.get(), done);
+        }
+        Map<TKey, TimedData<TData>> results = loader.results;
+        logger.info("本地缓存({})初始化完成，加载{}项，失败{}项，耗时{}ms，{}项/秒",
+            cacheName, results.size(), loader.failed.get(), elapsed, results.size() * 1000L / elapsed);
+        //按初始化Key的顺序返回
+        Map<TKey, TimedData<TData>> map = new LinkedHashMap<>(results.size());
+        for (TKey key : keys) {
+            TimedData<TData> v = results.get(key);
+            if (v != null) {
+                map.put(key, v);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 初始化加载的滑动窗口：启动时发出concurrency个请求，之后每完成一个发出下一个，
+     * Key全部发出（或超过期限）且已发出的请求全部完成时completed完成
+     */
+    private static final class InitLoader<TKey,TData> {
+        final Map<TKey, TimedData<TData>> results;
+        final AtomicInteger issued = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final Promise<Void> completed = Futures.promise();
+        private final String cacheName;
+        private final Iterator<TKey> keys; //由this同步
+        private final int total;
+        private final int progressStep;
+        private final Function<TKey, Future<TimedData<TData>>> request;
+        private final long deadline;
+        private final ExecutionContext dispatcher;
+        private boolean stopped; //由this同步
+
+        InitLoader(String cacheName, List<TKey> keys, Function<TKey, Future<TimedData<TData>>> request,
+                   long deadline, ExecutionContext dispatcher) {
+            this.cacheName = cacheName;
+            this.keys = keys.iterator();
+            this.total = keys.size();
+            this.progressStep = Math.max(1000, total / 10);
+            this.results = new ConcurrentHashMap<>(total);
+            this.request = request;
+            this.deadline = deadline;
+            this.dispatcher = dispatcher;
+        }
+
+        void start(int concurrency) {
+            for (int i = 0; i < concurrency; i++) {
+                next();
+            }
+        }
+
+        private void next() {
+            TKey key = null;
+            synchronized (this) {
+                if (!stopped) {
+                    if (keys.hasNext() && System.currentTimeMillis() < deadline) {
+                        key = keys.next();
+                        issued.incrementAndGet();
+                    } else {
+                        stopped = true;
+                    }
+                }
+            }
+            if (key == null) {
+                //不再发出请求，最后一个完成的请求走到这里时结束等待
+                if (finished.get() == issued.get()) {
+                    completed.trySuccess(null);
+                }
+                return;
+            }
+            Future<TimedData<TData>> f;
+            try {
+                f = request.apply(key);
+            } catch (Exception ex) {
+                f = Futures.failed(ex);
+            }
+            final TKey k = key;
+            f.onComplete(new OnComplete<TimedData<TData>>() {
+                @Override
+                public void onComplete(Throwable failure, TimedData<TData> value) {
+                    if (failure == null && value != null) {
+                        results.put(k, value);
+                    } else {
+                        failed.incrementAndGet();
+                        logger.warn("本地缓存({})加载失败:key={}", cacheName, k, failure);
+                    }
+                    int n = finished.incrementAndGet();
+                    if (n % progressStep == 0) {
+                        logger.info("本地缓存({})初始化进度{}/{}", cacheName, n, total);
+                    }
+                    next();
+                }
+            }, dispatcher);
+        }
+    }
+
+    private static final class Subscription {
+        final ActorRef subscriber;
+        final long time;
+        Subscription(ActorRef subscriber, long time) {
+            this.subscriber = subscriber;
+            this.time = time;
+        }
+    }
+
     //------------------------------------------------------------------------------------------------------------------
 
     public static <TKey>
@@ -144,7 +320,8 @@ public class LocalCacheCreator {
                                                final ICacheAsker<TKey, List> remoteCacheAsker,
                                                int timeout, int initTimeout) {
         return createLocalListCache(actorRefFactory, localCacheConfig, remoteCacheAsker, timeout,initTimeout,
-            source -> ListCacheActor.props(localCacheConfig, source)
+            source -> ListCacheActor.props(localCacheConfig, source),
+            CacheRouting.single()
         );
     }
 
@@ -168,7 +345,8 @@ public class LocalCacheCreator {
                                                      final ICacheAsker<TKey, List> remoteCacheAsker,
                                                      int timeout, int initTimeout) {
         return createLocalListCache(actorRefFactory, localCacheConfig, remoteCacheAsker, timeout,initTimeout,
-            source -> ListCacheActor.propsOfCachePool(poolSize, localCacheConfig, source)
+            source -> ListCacheActor.propsOfCachePool(poolSize, localCacheConfig, source),
+            poolRouting(actorRefFactory)
         );
     }
 
@@ -190,12 +368,13 @@ public class LocalCacheCreator {
                                                                     ICacheConfig<TKey> localCacheConfig,
                                                                     final ICacheAsker<TKey, List> remoteCacheAsker,
                                                                     int timeout, int initTimeout,
-                                                                    Function<IDataSource,Props> localCacheProps) {
+                                                                    Function<IDataSource,Props> localCacheProps,
+                                                                    CacheRouting routing) {
         IDataSource localCacheSource = createLocalListCacheSource(actorRefFactory,localCacheConfig,remoteCacheAsker,timeout, initTimeout);
         ActorRef localCachePool = actorRefFactory.actorOf(localCacheProps.apply(localCacheSource), localCacheConfig.getCacheName());
         logger.info("Create local cache at：{}",localCachePool.path());
         ActorSelection sel = actorRefFactory.actorSelection(localCachePool.path());
-        return new CacheAsker<>(sel, actorRefFactory.dispatcher(), timeout+LOCAL_ASKER_DELAY);
+        return new CacheAsker<>(sel, actorRefFactory.dispatcher(), timeout+LOCAL_ASKER_DELAY, routing);
     }
 
     private static <TKey> IDataSource createLocalListCacheSource(ActorRefFactory actorRefFactory,
@@ -204,75 +383,136 @@ public class LocalCacheCreator {
                                                                 int timeout, int initTimeout) {
         //本地缓存向缓存服务请求数据
         return new IDataSource<TKey,List>() {
+            //旧版本的缓存服务不处理GetListSnapshot，请求超时后在此时间之前改用GetSize与GetRange读取
+            private volatile long snapshotRetryTime;
             @Override
             public Future<TimedData<List>> request(ActorRef cacheActor, String cacheName, TKey key) {
                 return request(key, timeout);
             }
-            public Map<TKey, TimedData<List>> initCache(List<TKey> keys) {
-                if (keys != null && !keys.isEmpty()) {
-                    Map<TKey, TimedData<List>> map = new LinkedHashMap<>(keys.size());
-                    for (TKey key : keys) {
-                        try {
-                            Future<TimedData<List>> f = request(key, initTimeout);
-                            Duration d = Duration.create(initTimeout,"ms");
-                            TimedData<List> v = Await.result(f, d);
-                            map.put(key, v);
-                        } catch (Exception ex) {
-                            logger.warn("本地缓存({})加载失败:key={}",localCacheConfig.getCacheName(), key.toString(), ex);
-                        }
-                    }
-                    return map;
+            @Override
+            public Future<TimedData<List>> request(ActorRef cacheActor, String cacheName, TKey key, TimedData<List> current) {
+                int blockSize = localCacheConfig.getListDeltaBlockSize();
+                if (blockSize > 0 && current != null && current.data instanceof ChunkedList && current.data.size() >= blockSize) {
+                    return requestDelta(key, (ChunkedList) current.data, current.time, blockSize, timeout);
                 } else {
-                    return null;
+                    return request(key, timeout);
                 }
             }
+            public Map<TKey, TimedData<List>> initCache(List<TKey> keys) {
+                return initCacheParallel(localCacheConfig, keys, key -> request(key, initTimeout), actorRefFactory.dispatcher());
+            }
             private Future<TimedData<List>> request(TKey key, long timeout1) {
-                int COUNT = localCacheConfig.getListDataRequestSize();
-                Duration duration = Duration.create(initTimeout,"ms");
-                Future<Integer> futureSize = remoteCacheAsker.getSize(key);
+                if (localCacheConfig.getListSnapshotSize() > 0 && System.currentTimeMillis() >= snapshotRetryTime) {
+                    return requestSnapshot(key, timeout1, LIST_SNAPSHOT_RETRY);
+                } else {
+                    return requestBySize(key, timeout1);
+                }
+            }
+            //只请求相对于本地旧列表变化的部分，变化太多时完整读取
+            private Future<TimedData<List>> requestDelta(TKey key, ChunkedList base, long baseVersion, int blockSize, long timeout1) {
+                int maxLiterals = Math.max(localCacheConfig.getListSnapshotSize(), localCacheConfig.getListDataRequestSize());
+                long[] hashes;
                 try {
-                    int size = Await.result(futureSize, duration);
-                    if (size > 0) {
-                        List<Future<TimedData<List>>> futures = new LinkedList<>();
-                        for (int index = 0; index < size; index+=COUNT) {
-                            GetRange<TKey> getRange = new GetRange<>(key, index, COUNT);
-                            Future f = remoteCacheAsker.ask(getRange,timeout1).map(
-                                new Mapper<DataResult<TKey,List>,TimedData<List>>() {
-                                    public TimedData<List> apply(DataResult<TKey,List> dataResult) {
-                                    if (dataResult.failed == null) {
-                                        return new TimedData<>(dataResult.expiredTime, dataResult.data);
-                                    } else {
-                                        throw new CacheSourceException("remote cache server error", dataResult.failed);
-                                    }
-                                    }
-                                },
-                                actorRefFactory.dispatcher());
-                            futures.add(f);
+                    hashes = base.blockHashes(blockSize);
+                } catch (IllegalArgumentException ex) {
+                    logger.debug("列表元素无法编码，不能增量更新，完整读取：key={}", key, ex);
+                    return request(key, timeout1);
+                }
+                GetListDelta<TKey> get = new GetListDelta<>(key, baseVersion, blockSize, hashes, maxLiterals);
+                return remoteCacheAsker.ask(get, timeout1).flatMap(
+                    new Mapper<DataResult<TKey, List>, Future<TimedData<List>>>() {
+                        @Override
+                        public Future<TimedData<List>> apply(DataResult<TKey, List> it) {
+                            if (it.failed != null) {
+                                throw new CacheSourceException("remote cache server error", it.failed);
+                            }
+                            ListDeltaResult<TKey> delta = (ListDeltaResult<TKey>) it;
+                            if (delta.unchanged) {
+                                return Futures.successful(new TimedData<>(delta.expiredTime, base));
+                            } else if (delta.ops == null) {
+                                logger.debug("列表变化太多，完整读取：key={}", key);
+                                return request(key, timeout1);
+                            }
+                            ChunkedList data = ListDelta.apply(base, blockSize, delta.ops, delta.data);
+                            if (data.size() != delta.size) {
+                                throw new IllegalStateException("list delta size mismatch: key=" + key + ", " + data.size() + " != " + delta.size);
+                            }
+                            logger.debug("增量更新本地缓存完成：key={}, size={}, 新元素={}", key, data.size(), delta.data.size());
+                            return Futures.successful(new TimedData<>(delta.expiredTime, data));
                         }
-                        return FutureUtils.mapFutures(futures, actorRefFactory.dispatcher()).map(
-                            FutureUtils.mapper(it -> {
-                                if (it.size() == 0) {
-                                    throw new IllegalStateException("assert failed");
-                                }
-                                List data = new LinkedList();
-                                long time = it.get(0).time;
-                                for (TimedData<List> i : it) {
-                                    data.addAll(i.data);
-                                }
-                                logger.debug("更新本地缓存完成：key={}, size={}", key, data.size());
-                                return new TimedData<>(time, data);
-                            }), actorRefFactory.dispatcher()
-                        );
-                    } else {
-                        long expiredTime = System.currentTimeMillis() + DEFAULT_EXPIRED_SECONDS.get()*1000;
-                        return Futures.successful(new TimedData<>(expiredTime, new LinkedList<>()));
+                    }, actorRefFactory.dispatcher());
+            }
+            //一次请求取得列表长度、版本与前N个元素，其余部分按此版本分段读取；读取期间列表版本变化时重新开始
+            private Future<TimedData<List>> requestSnapshot(TKey key, long timeout1, int retry) {
+                final int count = localCacheConfig.getListDataRequestSize();
+                final int window = localCacheConfig.getListDataRequestWindow();
+                final ExecutionContext dispatcher = actorRefFactory.dispatcher();
+                GetListSnapshot<TKey> get = new GetListSnapshot<>(key, localCacheConfig.getListSnapshotSize());
+                Future<DataResult<TKey, List>> asked = remoteCacheAsker.ask(get, timeout1).recover(new Recover<DataResult<TKey, List>>() {
+                    @Override
+                    public DataResult<TKey, List> recover(Throwable ex) throws Throwable {
+                        if (ex instanceof TimeoutException) {
+                            snapshotRetryTime = System.currentTimeMillis() + LIST_SNAPSHOT_FALLBACK_PERIOD;
+                            logger.warn("本地缓存({})的GetListSnapshot请求超时，缓存服务可能不支持此请求，{}秒内改用GetSize与GetRange读取：key={}",
+                                localCacheConfig.getCacheName(), LIST_SNAPSHOT_FALLBACK_PERIOD / 1000, key);
+                            return null;
+                        }
+                        throw ex;
                     }
-                } catch (CacheSourceException ex) {
-                    throw ex;
-                } catch(Exception ex) {
-                    throw new RuntimeException("更新本地缓存失败, 未能获取列表长度：key="+key, ex);
+                }, dispatcher);
+                Future<TimedData<List>> f = asked.flatMap(
+                    new Mapper<DataResult<TKey, List>, Future<TimedData<List>>>() {
+                        @Override
+                        public Future<TimedData<List>> apply(DataResult<TKey, List> it) {
+                            if (it == null) {
+                                return requestBySize(key, timeout1);
+                            }
+                            if (it.failed != null) {
+                                throw new CacheSourceException("remote cache server error", it.failed);
+                            }
+                            ListSnapshotResult<TKey> snapshot = (ListSnapshotResult<TKey>) it;
+                            if (snapshot.data.size() >= snapshot.size) {
+                                return Futures.successful(new TimedData<>(snapshot.expiredTime, ChunkedList.copyOf(snapshot.data)));
+                            }
+                            return new ListRangeFetcher<>(remoteCacheAsker, key, snapshot.size, count, window, timeout1, dispatcher).fetch(snapshot);
+                        }
+                    }, dispatcher);
+                if (retry <= 0) {
+                    return f;
                 }
-
+                return f.recoverWith(new Recover<Future<TimedData<List>>>() {
+                    @Override
+                    public Future<TimedData<List>> recover(Throwable ex) throws Throwable {
+                        if (ex instanceof ListVersionChangedException) {
+                            logger.debug("读取列表期间版本变化，重新读取：key={}", key);
+                            return requestSnapshot(key, timeout1, retry - 1);
+                        }
+                        throw ex;
+                    }
+                }, dispatcher);
+            }
+            //先取列表长度，再以有限的并发窗口分段读取，全程异步，不阻塞dispatcher线程
+            private Future<TimedData<List>> requestBySize(TKey key, long timeout1) {
+                final int count = localCacheConfig.getListDataRequestSize();
+                final int window = localCacheConfig.getListDataRequestWindow();
+                final ExecutionContext dispatcher = actorRefFactory.dispatcher();
+                Future<Integer> futureSize = remoteCacheAsker.getSize(key).recover(new Recover<Integer>() {
+                    @Override
+                    public Integer recover(Throwable ex) throws Throwable {
+                        throw new RuntimeException("更新本地缓存失败, 未能获取列表长度：key="+key, ex);
+                    }
+                }, dispatcher);
+                return futureSize.flatMap(new Mapper<Integer, Future<TimedData<List>>>() {
+                    @Override
+                    public Future<TimedData<List>> apply(Integer size) {
+                        if (size > 0) {
+                            return new ListRangeFetcher<>(remoteCacheAsker, key, size, count, window, timeout1, dispatcher).fetch();
+                        } else {
+                            long expiredTime = System.currentTimeMillis() + DEFAULT_EXPIRED_SECONDS.get()*1000;
+                            return Futures.successful(new TimedData<>(expiredTime, ChunkedList.empty()));
+                        }
+                    }
+                }, dispatcher);
             }
         };
     }
@@ -0,0 +1,30 @@
+package net.arksea.acache;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GetMulti请求的返回结果，每个Key对应一个DataResult
+ * Created by arksea on 2019/5/22.
+ */
+public class MultiDataResult<TKey,TData> implements Serializable {
+    public final String cacheName;
+    public final Map<TKey, DataResult<TKey,TData>> results;
+    public MultiDataResult(String cacheName, Map<TKey, DataResult<TKey,TData>> results) {
+        this.cacheName = cacheName;
+        this.results = results;
+    }
+
+    /**
+     * 请求失败时，为每个Key生成失败的DataResult
+     */
+    public static <TKey,TData> MultiDataResult<TKey,TData> failed(Throwable ex, String cacheName, Collection<TKey> keys) {
+        Map<TKey, DataResult<TKey,TData>> map = new HashMap<>(keys.size());
+        for (TKey key : keys) {
+            map.put(key, new DataResult<>(ex, cacheName, key));
+        }
+        return new MultiDataResult<>(cacheName, map);
+    }
+}
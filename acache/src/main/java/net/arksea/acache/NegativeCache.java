@@ -0,0 +1,68 @@
+package net.arksea.acache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据源返回null（没有对应数据）的Key，只保存Key与过期时间，不为其新建CachedItem；
+ * 所有Key使用相同的TTL，按写入顺序过期，所以清理时只需从最早写入的开始检查；
+ * 超过最大数量时淘汰最早写入的Key；只在CacheActor内部使用，非线程安全
+ * Created by arksea on 2019/7/3.
+ */
+final class NegativeCache<TKey> {
+    private final long ttl;
+    private final LinkedHashMap<TKey,Long> expiredTimes;
+
+    NegativeCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        this.expiredTimes = new LinkedHashMap<TKey,Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TKey,Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    void put(TKey key, long now) {
+        //先删除再写入，保持按过期时间排序
+        expiredTimes.remove(key);
+        expiredTimes.put(key, now + ttl);
+    }
+
+    /**
+     * Key是否已知不存在，已过期的记录顺便删除
+     */
+    boolean contains(TKey key, long now) {
+        Long expiredTime = expiredTimes.get(key);
+        if (expiredTime == null) {
+            return false;
+        }
+        if (now > expiredTime) {
+            expiredTimes.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    void remove(TKey key) {
+        expiredTimes.remove(key);
+    }
+
+    /**
+     * 删除已过期的记录，返回删除的数量
+     */
+    int purgeExpired(long now) {
+        int count = 0;
+        Iterator<Long> it = expiredTimes.values().iterator();
+        while (it.hasNext() && now > it.next()) {
+            it.remove();
+            ++count;
+        }
+        return count;
+    }
+
+    int size() {
+        return expiredTimes.size();
+    }
+}
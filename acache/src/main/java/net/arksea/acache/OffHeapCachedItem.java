@@ -0,0 +1,138 @@
+package net.arksea.acache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 数据保存在堆外内存的缓存项，堆内只保留过期时间等元数据与堆外块地址；
+ * 堆外内存已满或数据无法编码时退化为在堆内保存数据；
+ * 数据被替换或移除时地址与版本号一起更新，其他线程读取后校验版本号，保证读到的数据完整
+ * Created by arksea on 2019/6/3.
+ */
+class OffHeapCachedItem<TKey, TData> extends CachedItem<TKey, TData> {
+    private static final Logger logger = LogManager.getLogger(OffHeapCachedItem.class);
+    private final OffHeapTier<TKey,TData> tier;
+    private volatile long address = OffHeapStore.NULL;
+    private volatile int version;
+    volatile TimedData<TData> hotData; //hot set中保留的解码后的数据
+
+    public OffHeapCachedItem(final TKey key, OffHeapTier<TKey,TData> tier) {
+        super(key);
+        this.tier = tier;
+    }
+
+    @Override
+    protected void storeData(TimedData<TData> data) {
+        long old = address;
+        long addr = data.data == null ? OffHeapStore.NULL : put(data.data);
+        //先更新地址、数据与版本号，再释放旧的块，读取线程可以通过版本号发现变化
+        address = addr;
+        hotData = null;
+        super.storeData(addr == OffHeapStore.NULL ? data : new TimedData<>(data.time, null, data.removeOnExpired));
+        version++;
+        if (old != OffHeapStore.NULL) {
+            tier.store.free(old);
+        }
+    }
+
+    /**
+     * 编码后写入堆外内存，失败时返回NULL；在CacheActor中调用，编码异常不能抛出，否则Actor重启会丢失等待数据的请求
+     */
+    private long put(TData data) {
+        byte[] bytes;
+        try {
+            bytes = tier.codec.encode(data);
+        } catch (RuntimeException ex) {
+            logger.warn("缓存数据编码失败，数据保存在堆内，key={}", key, ex);
+            return OffHeapStore.NULL;
+        }
+        return tier.store.put(bytes);
+    }
+
+    @Override
+    public void markDirty() {
+        super.markDirty();
+        hotData = null;
+    }
+
+    @Override
+    TimedData<TData> getDataAndUpdateLastRequestTime() {
+        super.getDataAndUpdateLastRequestTime();
+        TimedData<TData> hot = hotData;
+        TimedData<TData> meta = timedData;
+        if (hot != null && hot.time == meta.time) {
+            return hot;
+        }
+        long addr = address;
+        if (addr == OffHeapStore.NULL) {
+            return meta;
+        }
+        TimedData<TData> data = new TimedData<>(meta.time, tier.codec.decode(tier.store.get(addr)), meta.removeOnExpired);
+        tier.onRead(this, data);
+        return data;
+    }
+
+    /**
+     * 只有hot set中或未能存入堆外的数据才复用DataResult，其他每次解码的数据不保存，以免占用堆内存
+     */
+    @Override
+    protected DataResult<TKey,TData> toResult(String cacheName, TimedData<TData> data) {
+        if (data == hotData || data == timedData) {
+            return super.toResult(cacheName, data);
+        }
+        return new DataResult<>(cacheName, key, data.time, data.data);
+    }
+
+    @Override
+    TData peekData() {
+        long addr = address;
+        return addr == OffHeapStore.NULL ? timedData.data : tier.codec.decode(tier.store.get(addr));
+    }
+
+    @Override
+    TimedData<TData> tryGetDataAndUpdateLastRequestTime() {
+        TimedData<TData> data = tryPeekData();
+        if (data != null) {
+            super.getDataAndUpdateLastRequestTime();
+        }
+        return data;
+    }
+
+    @Override
+    TimedData<TData> tryPeekData() {
+        TimedData<TData> hot = hotData;
+        TimedData<TData> meta = timedData;
+        if (hot != null && hot.time == meta.time) {
+            return hot;
+        }
+        int v = version;
+        long addr = address;
+        meta = timedData;
+        if (addr == OffHeapStore.NULL) {
+            return version == v ? meta : null;
+        }
+        byte[] bytes;
+        try {
+            bytes = tier.store.get(addr);
+        } catch (RuntimeException ex) { //块已被释放并重新分配
+            return null;
+        }
+        if (version != v) {
+            return null;
+        }
+        return new TimedData<>(meta.time, tier.codec.decode(bytes), meta.removeOnExpired);
+    }
+
+    @Override
+    void release() {
+        long old = address;
+        address = OffHeapStore.NULL;
+        version++;
+        hotData = null;
+        clearResult();
+        tier.onRemoved(this);
+        if (old != OffHeapStore.NULL) {
+            tier.store.free(old);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package net.arksea.acache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 堆外内存的Slab分配器：按2的幂划分大小等级（最小64字节），每个Slab只分配一个等级的块，
+ * 释放的块进入所属等级的空闲栈重复使用；超过Slab大小的数据单独分配一块直接内存；
+ * 每个块的前4个字节保存数据长度，块地址编码为long：高32位为Slab序号，低32位为偏移；
+ * 写入与释放只在CacheActor中调用，读取可以在其他线程进行
+ * Created by arksea on 2019/6/3.
+ */
+final class OffHeapStore {
+    static final long NULL = -1L;
+    private static final int MIN_CHUNK_SHIFT = 6;
+    private static final int LARGE = -1;
+
+    private final int slabSize;
+    private final long maxBytes;
+    private volatile ByteBuffer[] slabs = new ByteBuffer[16];
+    private int[] slabClass = new int[16];
+    private int slabCount;
+    private final int[] currentSlab;   //各等级正在切分的Slab，-1表示没有
+    private final int[] currentOffset; //各等级正在切分的Slab中下一个块的偏移
+    private final long[][] freeChunks;
+    private final int[] freeCount;
+    private long allocatedBytes;
+    private long usedBytes;
+
+    OffHeapStore(int slabSize, long maxBytes) {
+        slabSize = Integer.highestOneBit(Math.max(slabSize, 1 << MIN_CHUNK_SHIFT) * 2 - 1); //向上取2的幂
+        int classes = Math.max(1, 32 - Integer.numberOfLeadingZeros(slabSize - 1) - MIN_CHUNK_SHIFT + 1);
+        this.slabSize = slabSize;
+        this.maxBytes = maxBytes;
+        this.currentSlab = new int[classes];
+        this.currentOffset = new int[classes];
+        this.freeChunks = new long[classes][];
+        this.freeCount = new int[classes];
+        Arrays.fill(currentSlab, -1);
+        for (int i = 0; i < classes; i++) {
+            freeChunks[i] = new long[16];
+        }
+    }
+
+    /**
+     * 保存数据
+     * @return 块地址，堆外内存已达上限时返回NULL
+     */
+    long put(byte[] bytes) {
+        int total = bytes.length + 4;
+        long address;
+        if (total > slabSize) {
+            if (allocatedBytes + total > maxBytes) {
+                return NULL;
+            }
+            int slab = newSlab(total, LARGE);
+            address = (long) slab << 32;
+            usedBytes += total;
+        } else {
+            int cls = classOf(total);
+            address = allocate(cls);
+            if (address == NULL) {
+                return NULL;
+            }
+            usedBytes += chunkSize(cls);
+        }
+        ByteBuffer buf = slabs[(int) (address >>> 32)].duplicate();
+        buf.position((int) address);
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+        return address;
+    }
+
+    /**
+     * 读取数据，地址无效（例如已被释放并分配给其他数据）时可能返回错误的数据或抛出异常，
+     * 并发读取时调用者需要自行校验
+     */
+    byte[] get(long address) {
+        ByteBuffer slab = slabs[(int) (address >>> 32)];
+        if (slab == null) {
+            throw new IllegalStateException("off-heap slab released");
+        }
+        ByteBuffer buf = slab.duplicate();
+        int offset = (int) address;
+        int length = buf.getInt(offset);
+        if (length < 0 || offset + 4 + length > buf.capacity()) {
+            throw new IllegalStateException("off-heap chunk corrupted");
+        }
+        byte[] bytes = new byte[length];
+        buf.position(offset + 4);
+        buf.get(bytes);
+        return bytes;
+    }
+
+    void free(long address) {
+        int slab = (int) (address >>> 32);
+        int cls = slabClass[slab];
+        if (cls == LARGE) {
+            int size = slabs[slab].capacity();
+            usedBytes -= size;
+            allocatedBytes -= size;
+            ByteBuffer[] copy = slabs.clone();
+            copy[slab] = null;
+            slabs = copy;
+        } else {
+            usedBytes -= chunkSize(cls);
+            if (freeCount[cls] == freeChunks[cls].length) {
+                freeChunks[cls] = Arrays.copyOf(freeChunks[cls], freeCount[cls] * 2);
+            }
+            freeChunks[cls][freeCount[cls]++] = address;
+        }
+    }
+
+    /**
+     * 已分配的堆外内存字节数
+     */
+    long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * 已使用的块占用的字节数
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    private long allocate(int cls) {
+        if (freeCount[cls] > 0) {
+            return freeChunks[cls][--freeCount[cls]];
+        }
+        int chunk = chunkSize(cls);
+        int slab = currentSlab[cls];
+        if (slab < 0 || currentOffset[cls] + chunk > slabSize) {
+            if (allocatedBytes + slabSize > maxBytes) {
+                return NULL;
+            }
+            slab = newSlab(slabSize, cls);
+            currentSlab[cls] = slab;
+            currentOffset[cls] = 0;
+        }
+        long address = ((long) slab << 32) | currentOffset[cls];
+        currentOffset[cls] += chunk;
+        return address;
+    }
+
+    private int newSlab(int size, int cls) {
+        ByteBuffer[] copy = slabs;
+        int index = -1;
+        //重用已释放的大块Slab序号
+        for (int i = 0; i < slabCount; i++) {
+            if (copy[i] == null) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            index = slabCount++;
+            if (index == copy.length) {
+                slabClass = Arrays.copyOf(slabClass, copy.length * 2);
+            }
+        }
+        copy = Arrays.copyOf(copy, Math.max(copy.length, slabClass.length));
+        copy[index] = ByteBuffer.allocateDirect(size);
+        slabClass[index] = cls;
+        slabs = copy;
+        allocatedBytes += size;
+        return index;
+    }
+
+    private static int classOf(int total) {
+        int shift = 32 - Integer.numberOfLeadingZeros(total - 1);
+        return Math.max(0, shift - MIN_CHUNK_SHIFT);
+    }
+
+    private static int chunkSize(int cls) {
+        return 1 << (cls + MIN_CHUNK_SHIFT);
+    }
+}
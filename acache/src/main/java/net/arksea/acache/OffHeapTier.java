@@ -0,0 +1,52 @@
+package net.arksea.acache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存数据的堆外存储层：数据用IValueCodec编码后保存在OffHeapStore中，
+ * 最近访问的少量数据在堆内保留解码后的副本（hot set），避免热点数据反复解码；
+ * 只在CacheActor内部修改，OffHeapCachedItem的读取可以在其他线程进行
+ * Created by arksea on 2019/6/3.
+ */
+final class OffHeapTier<TKey,TData> {
+    final OffHeapStore store;
+    final IValueCodec<TData> codec;
+    private final Map<TKey, OffHeapCachedItem<TKey,TData>> hotSet;
+
+    OffHeapTier(IValueCodec<TData> codec, int slabSize, long maxBytes, int hotSetSize) {
+        this.store = new OffHeapStore(slabSize, maxBytes);
+        this.codec = codec;
+        if (hotSetSize > 0) {
+            this.hotSet = new LinkedHashMap<TKey, OffHeapCachedItem<TKey,TData>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TKey, OffHeapCachedItem<TKey,TData>> eldest) {
+                    if (size() > hotSetSize) {
+                        eldest.getValue().hotData = null;
+                        eldest.getValue().clearResult();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        } else {
+            this.hotSet = null;
+        }
+    }
+
+    /**
+     * 数据被CacheActor读取后，放入hot set
+     */
+    void onRead(OffHeapCachedItem<TKey,TData> item, TimedData<TData> data) {
+        if (hotSet != null) {
+            item.hotData = data;
+            hotSet.put(item.key, item);
+        }
+    }
+
+    void onRemoved(OffHeapCachedItem<TKey,TData> item) {
+        if (hotSet != null) {
+            hotSet.remove(item.key);
+        }
+    }
+}
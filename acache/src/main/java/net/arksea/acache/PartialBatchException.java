@@ -0,0 +1,20 @@
+package net.arksea.acache;
+
+import java.util.Map;
+
+/**
+ * 批量请求中部分Key失败，IDataSource.requestBatch可以用此异常结束返回的Future：
+ * results为成功的Key（没有对应值的Key表示数据不存在），failures为失败的Key及其错误，
+ * CacheActor按Key分别处理，失败的Key不影响同一批中的其他Key
+ * Created by arksea on 2019/7/6.
+ */
+public class PartialBatchException extends CacheSourceException {
+    public final Map<?, ? extends TimedData<?>> results;
+    public final Map<?, ? extends Throwable> failures;
+
+    public PartialBatchException(Map<?, ? extends TimedData<?>> results, Map<?, ? extends Throwable> failures) {
+        super("batch request failed, " + failures.size() + " keys failed");
+        this.results = results;
+        this.failures = failures;
+    }
+}
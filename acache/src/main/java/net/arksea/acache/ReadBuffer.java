@@ -0,0 +1,77 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * DirectCacheAsker在调用者线程命中缓存时记录被访问的Key，由CacheActor取出后更新淘汰策略等只能在Actor内访问的状态；
+ * 有损的无锁环形缓冲：缓冲已满或写入竞争失败时直接丢弃，只影响访问频率统计的精度，不阻塞读取；
+ * 积累的记录达到一定数量时通知CacheActor取出，CacheActor处理其他消息时也会顺便取出
+ * Created by arksea on 2019/7/6.
+ */
+final class ReadBuffer<TKey> {
+    private static final int SIZE = 1024; //2的幂
+    private static final int MASK = SIZE - 1;
+    private static final int DRAIN_THRESHOLD = SIZE / 4;
+
+    private final AtomicReferenceArray<TKey> buffer = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter; //只由CacheActor修改
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile ActorRef owner; //CacheActor启动时设置
+
+    void setOwner(ActorRef owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * 记录一次访问，可在任意线程调用
+     */
+    void offer(TKey key) {
+        long w = writeCounter.get();
+        long pending = w - readCounter;
+        if (pending >= SIZE || !writeCounter.compareAndSet(w, w + 1)) {
+            return;
+        }
+        buffer.lazySet((int) (w & MASK), key);
+        if (pending >= DRAIN_THRESHOLD && drainScheduled.compareAndSet(false, true)) {
+            ActorRef ref = owner;
+            if (ref != null) {
+                ref.tell(new Drain(), ActorRef.noSender());
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return writeCounter.get() == readCounter;
+    }
+
+    /**
+     * 取出已记录的访问，只在CacheActor中调用
+     */
+    void drain(Consumer<TKey> consumer) {
+        drainScheduled.set(false);
+        long r = readCounter;
+        long w = writeCounter.get();
+        for (; r < w; r++) {
+            int index = (int) (r & MASK);
+            TKey key = buffer.get(index);
+            if (key == null) {
+                break; //已占用位置但还未写入，下次再取
+            }
+            buffer.lazySet(index, null);
+            consumer.accept(key);
+        }
+        readCounter = r;
+    }
+
+    /**
+     * 通知CacheActor取出缓冲中的访问记录
+     */
+    final static class Drain {
+    }
+}
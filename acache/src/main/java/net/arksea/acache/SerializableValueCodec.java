@@ -0,0 +1,35 @@
+package net.arksea.acache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * 使用Java序列化的默认编解码，数据类型需实现Serializable，
+ * 性能要求高时建议为具体数据类型实现IValueCodec
+ * Created by arksea on 2019/6/3.
+ */
+public class SerializableValueCodec<TData> implements IValueCodec<TData> {
+    @Override
+    public byte[] encode(TData data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(data);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("encode cache data failed", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TData decode(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (TData) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalArgumentException("decode cache data failed", ex);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package net.arksea.acache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分层时间轮，按到期时间（毫秒）登记缓存Key，推进时只处理已到期的桶，
+ * 未到期的Key会被降级到更精细的层，处理代价与到期的Key数量成正比，与缓存总量无关；
+ * 各层桶的跨度分别约为：1秒、65秒、70分钟、37小时，超出的Key放在最后一层的溢出桶里；
+ * 只在CacheActor内部使用，非线程安全
+ * Created by arksea on 2019/5/16.
+ */
+final class TimerWheel<TKey> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final int[] SHIFT = {10, 16, 22, 27, 29};
+    private static final long[] SPANS = {1L << 10, 1L << 16, 1L << 22, 1L << 27, 1L << 29, 1L << 29};
+
+    /**
+     * Key到期时的处理
+     */
+    interface Expirer<TKey> {
+        /**
+         * @return Key新的到期时间，返回Long.MAX_VALUE表示不再登记此Key
+         */
+        long expire(TKey key, long now);
+    }
+
+    private final Map<TKey, Node<TKey>> nodes = new HashMap<>();
+    private final Node<TKey>[][] wheel;
+    private long time;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long now) {
+        this.time = now;
+        wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = Node.sentinel();
+            }
+        }
+    }
+
+    /**
+     * 登记或更新Key的到期时间，deadline为Long.MAX_VALUE时注销此Key
+     */
+    void schedule(TKey key, long deadline) {
+        Node<TKey> node = nodes.get(key);
+        if (deadline == Long.MAX_VALUE) {
+            if (node != null) {
+                nodes.remove(key);
+                unlink(node);
+            }
+            return;
+        }
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.deadline = deadline;
+        link(findBucket(deadline), node);
+    }
+
+    /**
+     * 仅当新的到期时间早于已登记的到期时间时才更新，
+     * 晚于登记时间的情况由到期时Expirer检查后重新登记
+     */
+    void scheduleIfEarlier(TKey key, long deadline) {
+        Node<TKey> node = nodes.get(key);
+        if (node == null || deadline < node.deadline) {
+            schedule(key, deadline);
+        }
+    }
+
+    void remove(TKey key) {
+        Node<TKey> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 推进时间轮到now，对到期的Key调用expirer
+     */
+    void advance(long now, Expirer<TKey> expirer) {
+        long previousTime = time;
+        time = now;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTime >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, delta, expirer);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Expirer<TKey> expirer) {
+        Node<TKey>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        for (int i = start; i < end; i++) {
+            Node<TKey> sentinel = buckets[i & mask];
+            Node<TKey> node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (node != sentinel) {
+                Node<TKey> next = node.next;
+                node.prev = null;
+                node.next = null;
+                if (node.deadline > time) {
+                    //未到期，重新放入更精细的层
+                    link(findBucket(node.deadline), node);
+                } else {
+                    long deadline = expirer.expire(node.key, time);
+                    if (node.next != null || nodes.get(node.key) != node) {
+                        //expirer中已经重新登记或注销了此Key
+                        node = next;
+                        continue;
+                    }
+                    if (deadline == Long.MAX_VALUE) {
+                        nodes.remove(node.key);
+                    } else {
+                        node.deadline = deadline;
+                        link(findBucket(deadline), node);
+                    }
+                }
+                node = next;
+            }
+        }
+    }
+
+    private Node<TKey> findBucket(long deadline) {
+        //已经到期的Key放到当前时间所在的桶，下次推进时处理
+        deadline = Math.max(deadline, time);
+        long duration = deadline - time;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = deadline >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static <TKey> void link(Node<TKey> sentinel, Node<TKey> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <TKey> void unlink(Node<TKey> node) {
+        if (node.next != null) {
+            node.next.prev = node.prev;
+            node.prev.next = node.next;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    private static final class Node<TKey> {
+        final TKey key;
+        long deadline;
+        Node<TKey> prev;
+        Node<TKey> next;
+        Node(TKey key) {
+            this.key = key;
+        }
+        static <TKey> Node<TKey> sentinel() {
+            Node<TKey> s = new Node<>(null);
+            s.prev = s;
+            s.next = s;
+            return s;
+        }
+    }
+}
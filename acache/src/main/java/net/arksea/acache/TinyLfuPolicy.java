@@ -0,0 +1,222 @@
+package net.arksea.acache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按容量淘汰缓存的W-TinyLFU策略：
+ * 新数据先进入窗口LRU（容量的1%），被挤出窗口的数据作为候选者，与主区域（SLRU：probation + protected）
+ * 最久未访问的数据比较访问频率，频率高者留下；
+ * 容量可以按条数(ICacheConfig.getMaximumSize)或权重(ICacheConfig.getMaximumWeight)计算；
+ * 只在CacheActor内部使用，非线程安全
+ * Created by arksea on 2019/5/14.
+ */
+final class TinyLfuPolicy<TKey> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<TKey, Node<TKey>> nodes = new HashMap<>();
+    private final FrequencySketch<TKey> sketch;
+    private final Queue<TKey> window = new Queue<>();
+    private final Queue<TKey> probation = new Queue<>();
+    private final Queue<TKey> protect = new Queue<>();
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long totalWeight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    TinyLfuPolicy(long maximum, long expectedSize) {
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch<>(expectedSize);
+    }
+
+    /**
+     * 新增或更新一条缓存，超出容量被淘汰的Key添加到evicted中（可能包括新增的Key本身）
+     */
+    void onPut(TKey key, int weight, List<TKey> evicted) {
+        Node<TKey> node = nodes.get(key);
+        if (node == null) {
+            sketch.increment(key);
+            node = new Node<>(key, weight);
+            nodes.put(key, node);
+            sketch.ensureCapacity(nodes.size());
+            window.addLast(node);
+            windowWeight += weight;
+            totalWeight += weight;
+        } else {
+            int delta = weight - node.weight;
+            node.weight = weight;
+            totalWeight += delta;
+            if (node.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (node.queue == PROTECTED) {
+                protectedWeight += delta;
+            }
+            onAccess(key);
+        }
+        evict(evicted);
+    }
+
+    void onAccess(TKey key) {
+        Node<TKey> node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        sketch.increment(key);
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            //probation中被再次访问的数据晋升到protected，protected超出容量时将其最久未访问的数据降级
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protect.addLast(node);
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaximum) {
+                Node<TKey> demoted = protect.pollFirst();
+                protectedWeight -= demoted.weight;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protect.moveToLast(node);
+        }
+    }
+
+    void onRemove(TKey key) {
+        Node<TKey> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    long weightedSize() {
+        return totalWeight;
+    }
+
+    private void evict(List<TKey> evicted) {
+        //被挤出窗口的数据依次移到probation末尾，成为准入候选者
+        Node<TKey> candidate = null;
+        while (windowWeight > windowMaximum) {
+            Node<TKey> node = window.pollFirst();
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+        while (totalWeight > maximum) {
+            Node<TKey> victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protect.peekFirst();
+            }
+            if (victim == null) {
+                victim = window.peekFirst();
+            }
+            Node<TKey> removed;
+            if (candidate == null) {
+                removed = victim;
+            } else {
+                Node<TKey> next = candidate.next;
+                if (candidate == victim) {
+                    removed = victim;
+                } else {
+                    //TinyLFU准入：候选者频率高于受害者才替换，否则淘汰候选者
+                    removed = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+                }
+                candidate = next;
+            }
+            nodes.remove(removed.key);
+            unlink(removed);
+            evicted.add(removed.key);
+        }
+    }
+
+    private void unlink(Node<TKey> node) {
+        totalWeight -= node.weight;
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protect.remove(node);
+            protectedWeight -= node.weight;
+        }
+    }
+
+    private static final class Node<TKey> {
+        final TKey key;
+        int weight;
+        int queue = WINDOW;
+        Node<TKey> prev;
+        Node<TKey> next;
+        Node(TKey key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 按访问顺序排列的双向链表，头部为最久未访问的数据
+     */
+    private static final class Queue<TKey> {
+        private Node<TKey> first;
+        private Node<TKey> last;
+
+        Node<TKey> peekFirst() {
+            return first;
+        }
+
+        Node<TKey> peekLast() {
+            return last;
+        }
+
+        Node<TKey> pollFirst() {
+            Node<TKey> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<TKey> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void moveToLast(Node<TKey> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node<TKey> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.routing.ConsistentHashingRouter;
+
+/**
+ * 取消订阅Key的数据更新
+ * Created by arksea on 2019/6/26.
+ */
+public class UnsubscribeData<TKey,TData> implements ICacheRequest<TKey,TData> {
+    public final TKey key;
+    public final ActorRef subscriber;
+
+    public UnsubscribeData(TKey key, ActorRef subscriber) {
+        this.key = key;
+        this.subscriber = subscriber;
+    }
+    public TKey getKey() {
+        return key;
+    }
+    @Override
+    public Object consistentHashKey() {
+        if (key instanceof ConsistentHashingRouter.ConsistentHashable) {
+            return ((ConsistentHashingRouter.ConsistentHashable) key).consistentHashKey();
+        } else {
+            return key;
+        }
+    }
+}
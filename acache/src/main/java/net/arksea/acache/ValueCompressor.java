@@ -0,0 +1,131 @@
+package net.arksea.acache;
+
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据的LZ4压缩：编码后的字节数达到ICacheConfig.getCompressThreshold()且压缩后变小时才压缩；
+ * 压缩结果的前4字节为原始长度，解压时不需要知道压缩时的配置。
+ * 各ActorSystem按缓存名登记其中各缓存的压缩配置（Registry），CacheMessageSerializer发送DataResult时据此压缩数据
+ * Created by arksea on 2019/6/26.
+ */
+final class ValueCompressor {
+    private static final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final int MAX_EXPANSION = 255;
+
+    final int threshold;
+    private final IHitStat<?> hitStat;
+
+    ValueCompressor(int threshold, IHitStat<?> hitStat) {
+        this.threshold = threshold;
+        this.hitStat = hitStat;
+    }
+
+    /**
+     * @return 未达到阈值或压缩后没有变小时返回null
+     */
+    byte[] compress(byte[] raw) {
+        if (raw.length < threshold) {
+            return null;
+        }
+        byte[] dest = new byte[4 + compressor.maxCompressedLength(raw.length)];
+        int n = compressor.compress(raw, 0, raw.length, dest, 4);
+        if (n + 4 >= raw.length) {
+            return null;
+        }
+        dest[0] = (byte) (raw.length >>> 24);
+        dest[1] = (byte) (raw.length >>> 16);
+        dest[2] = (byte) (raw.length >>> 8);
+        dest[3] = (byte) raw.length;
+        hitStat.onCompressed(raw.length, n + 4);
+        return Arrays.copyOf(dest, n + 4);
+    }
+
+    static byte[] decompress(byte[] packed) {
+        return decompress(packed, 0);
+    }
+
+    /**
+     * 解压packed中从offset开始的压缩数据
+     */
+    static byte[] decompress(byte[] packed, int offset) {
+        if (packed.length - offset < 4) {
+            throw new IllegalArgumentException("invalid compressed data, length=" + (packed.length - offset));
+        }
+        int length = ((packed[offset] & 0xFF) << 24) | ((packed[offset + 1] & 0xFF) << 16)
+            | ((packed[offset + 2] & 0xFF) << 8) | (packed[offset + 3] & 0xFF);
+        //LZ4每个压缩字节最多还原为约255字节，超出的长度说明数据已损坏，不能按此长度分配内存
+        long maxLength = (long) (packed.length - offset - 4) * MAX_EXPANSION;
+        if (length < 0 || length > maxLength) {
+            throw new IllegalArgumentException("invalid compressed data, raw length=" + length + ", compressed length=" + (packed.length - offset - 4));
+        }
+        byte[] raw = new byte[length];
+        try {
+            int n = decompressor.decompress(packed, offset + 4, packed.length - offset - 4, raw, 0, length);
+            if (n != length) {
+                throw new IllegalArgumentException("invalid compressed data, expected " + length + " bytes, got " + n);
+            }
+        } catch (LZ4Exception ex) {
+            throw new IllegalArgumentException("invalid compressed data", ex);
+        }
+        return raw;
+    }
+
+    /**
+     * 一个ActorSystem中各缓存的压缩配置，CacheActor启动时登记，停止时注销；
+     * Pool模式的各实例分别登记，全部停止后才移除；同一ActorSystem中同名的缓存使用最先登记的配置
+     */
+    static final class Registry implements Extension {
+        private static final AbstractExtensionId<Registry> ID = new AbstractExtensionId<Registry>() {
+            @Override
+            public Registry createExtension(ExtendedActorSystem system) {
+                return new Registry();
+            }
+        };
+        private final Map<String, ValueCompressor[]> compressors = new ConcurrentHashMap<>();
+
+        static Registry get(ActorSystem system) {
+            return ID.get(system);
+        }
+
+        void register(String cacheName, ValueCompressor c) {
+            compressors.merge(cacheName, new ValueCompressor[]{c}, (old, added) -> {
+                ValueCompressor[] array = Arrays.copyOf(old, old.length + 1);
+                array[old.length] = c;
+                return array;
+            });
+        }
+
+        void unregister(String cacheName, ValueCompressor c) {
+            compressors.computeIfPresent(cacheName, (name, old) -> {
+                ValueCompressor[] array = new ValueCompressor[old.length];
+                int n = 0;
+                for (ValueCompressor v : old) {
+                    if (v != c) {
+                        array[n++] = v;
+                    }
+                }
+                return n == 0 ? null : Arrays.copyOf(array, n);
+            });
+        }
+
+        /**
+         * @return 缓存未设置压缩时返回null
+         */
+        ValueCompressor find(String cacheName) {
+            ValueCompressor[] array = cacheName == null ? null : compressors.get(cacheName);
+            return array == null ? null : array[0];
+        }
+    }
+}
@@ -2,13 +2,21 @@ package net.arksea.acache.dsf;
 
 import akka.actor.ActorRef;
 import akka.dispatch.Mapper;
+import akka.dispatch.Recover;
 import net.arksea.acache.*;
+import net.arksea.base.FutureUtils;
 import net.arksea.dsf.client.Client;
 import scala.concurrent.Await;
 import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static akka.japi.Util.classTag;
 
 /**
@@ -19,17 +27,55 @@ public final class CacheDsfAsker<K,V> implements ICacheAsker<K,V> {
     public final long timeout;
     private Client client;
     public final ExecutionContext dispatcher;
+    private final Duration syncTimeout; //syncGet的等待时间
+    public final CacheRouting routing; //getAll拆分GetMulti请求的方式
+    //get()把DataResult转换为值，无状态，所有请求共用一个实例
+    private final Mapper<DataResult<K,V>,V> resultMapper = new Mapper<DataResult<K,V>,V>() {
+        public V apply(DataResult<K,V> ret) {
+            if (ret.failed == null) {
+                return ret.data;
+            } else {
+                throw new RuntimeException(ret.cacheName+"获取数据失败", ret.failed);
+            }
+        }
+    };
 
+    /**
+     * getAll默认用CacheRouting.single()，所有Key合并为一个DSF请求，适用于服务端为单个缓存实例（非Pool）的情况；
+     * 服务端为Pool时，请求只会路由到第一个Key所在的实例，其余Key也会在该实例中缓存，
+     * 此时应使用4个参数的构造函数传入CacheRouting.byHashKey()
+     */
     public CacheDsfAsker(Client cacheClient, ExecutionContext dispatcher, long timeout) {
+        this(cacheClient, dispatcher, timeout, CacheRouting.single());
+    }
+
+    /**
+     * @param routing getAll拆分GetMulti请求的方式：服务端为单个缓存实例时用CacheRouting.single()，
+     *                为Pool时用CacheRouting.byHashKey()（每个consistentHashKey一个请求）；
+     *                DSF请求不经过ActorSelection，不能使用CacheRouting.consistentHashingPool
+     */
+    public CacheDsfAsker(Client cacheClient, ExecutionContext dispatcher, long timeout, CacheRouting routing) {
         this.timeout = timeout;
         this.client = cacheClient;
         this.dispatcher = dispatcher;
+        this.routing = routing;
+        this.syncTimeout = Duration.create(timeout, "ms");
     }
 
     public void markDirty(K key) {
         client.tell(new MarkDirty<>(key), true, ActorRef.noSender());
     }
 
+    @Override
+    public void subscribe(K key, ActorRef subscriber) {
+        client.tell(new SubscribeData<>(key, subscriber), true, ActorRef.noSender());
+    }
+
+    @Override
+    public void unsubscribe(K key, ActorRef subscriber) {
+        client.tell(new UnsubscribeData<>(key, subscriber), true, ActorRef.noSender());
+    }
+
     @Override
     public Future<DataResult<K, V>> ask(K key) {
         return ask(new GetData<>(key));
@@ -58,16 +104,7 @@ public final class CacheDsfAsker<K,V> implements ICacheAsker<K,V> {
     @Override
     public Future<V> get(ICacheRequest<K, V> req, long timeout) {
         Future<DataResult<K,V>> f = ask(req, timeout);
-        return f.map(
-            new Mapper<DataResult<K,V>,V>() {
-                public V apply(DataResult<K,V> ret) {
-                    if (ret.failed == null) {
-                        return ret.data;
-                    } else {
-                        throw new RuntimeException(ret.cacheName+"获取数据失败", ret.failed);
-                    }
-                }
-            }, dispatcher);
+        return f.map(resultMapper, dispatcher);
     }
 
     @Override
@@ -76,6 +113,39 @@ public final class CacheDsfAsker<K,V> implements ICacheAsker<K,V> {
         return client.request(getSize, timeout).mapTo(classTag(Integer.class));
     }
 
+    @Override
+    public Future<Map<K, DataResult<K, V>>> getAll(Collection<K> keys) {
+        return getAll(keys, this.timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Future<Map<K, DataResult<K, V>>> getAll(Collection<K> keys, long timeout) {
+        return routing.split(null, keys, timeout, dispatcher).flatMap(
+            FutureUtils.mapper((List<CacheRouting.Group<K>> groups) -> {
+                List<Future<MultiDataResult<K,V>>> futures = new ArrayList<>(groups.size());
+                for (CacheRouting.Group<K> g : groups) {
+                    futures.add(client.request(new GetMulti<K,V>(g.keys), timeout)
+                        .mapTo(classTag((Class<MultiDataResult<K,V>>) (Class<?>) MultiDataResult.class))
+                        .recover(new Recover<MultiDataResult<K,V>>() {
+                            @Override
+                            public MultiDataResult<K,V> recover(Throwable ex) {
+                                routing.onGroupFailed();
+                                //请求未到达缓存，没有缓存名
+                                return MultiDataResult.failed(ex, null, g.keys);
+                            }
+                        }, dispatcher));
+                }
+                return FutureUtils.mapFutures(futures, dispatcher).map(
+                    FutureUtils.mapper((List<MultiDataResult<K,V>> list) -> {
+                        Map<K, DataResult<K, V>> map = new HashMap<>(keys.size());
+                        for (MultiDataResult<K,V> r : list) {
+                            map.putAll(r.results);
+                        }
+                        return map;
+                    }), dispatcher);
+            }), dispatcher);
+    }
+
     /**
      * 同步访问方法不应作为常规使用手段，建议用于测试或者少数特殊场景
      * @param key
@@ -87,8 +157,7 @@ public final class CacheDsfAsker<K,V> implements ICacheAsker<K,V> {
         DataResult<K, V> ret;
         try {
             Future<DataResult<K, V>> f = ask(key);
-            Duration d = Duration.create(timeout, "ms");
-            ret = Await.result(f, d);
+            ret = Await.result(f, syncTimeout);
         } catch (Exception ex) {
             throw new CacheAskException("get cache failed", ex);
         }
@@ -0,0 +1,235 @@
+package net.arksea.acache;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.serialization.Serialization;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import akka.serialization.SerializerWithStringManifest;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * acache-serialization.conf中绑定到CacheMessageSerializer的每种消息都要能完整往返
+ * Created by arksea on 2019/7/5.
+ */
+public class CacheMessageSerializerTest {
+    private static ActorSystem system;
+    private static ActorRef subscriber;
+
+    @BeforeClass
+    public static void setup() {
+        Config config = ConfigFactory.parseResources("acache-serialization.conf").withFallback(ConfigFactory.load());
+        system = ActorSystem.create("CacheMessageSerializerTest", config);
+        subscriber = system.actorOf(Props.empty(), "subscriber");
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        Await.result(system.terminate(), Duration.create(10, "s"));
+        system = null;
+    }
+
+    @Test
+    public void javaSerializationByDefault() {
+        ActorSystem plain = ActorSystem.create("CacheMessageSerializerTestDefault");
+        try {
+            Serialization serialization = SerializationExtension.lookup().get(plain);
+            assertFalse(serialization.findSerializerFor(new GetData<>("key1")) instanceof CacheMessageSerializer);
+            //未绑定时也已注册，可以解码其他节点发来的消息
+            assertTrue(serialization.serializerByIdentity().get(CacheMessageSerializer.IDENTIFIER).isDefined());
+        } finally {
+            plain.terminate();
+        }
+    }
+
+    @Test
+    public void getData() {
+        GetData<String, Object> back = roundTrip(new GetData<>("key1"));
+        assertEquals("key1", back.key);
+    }
+
+    @Test
+    public void getRange() {
+        GetRange<String> back = roundTrip(new GetRange<>("key1", 10, 20, 123456789L));
+        assertEquals("key1", back.key);
+        assertEquals(10, back.start);
+        assertEquals(20, back.count);
+        assertEquals(123456789L, back.version);
+    }
+
+    @Test
+    public void getSize() {
+        GetSize<Long> back = roundTrip(new GetSize<>(42L));
+        assertEquals(Long.valueOf(42), back.key);
+    }
+
+    @Test
+    public void markDirty() {
+        MarkDirty<Integer, Object> back = roundTrip(new MarkDirty<>(7));
+        assertEquals(Integer.valueOf(7), back.key);
+    }
+
+    @Test
+    public void getMulti() {
+        GetMulti<String, Object> back = roundTrip(new GetMulti<>(Arrays.asList("a", "b", "c")));
+        assertEquals(Arrays.asList("a", "b", "c"), back.keys);
+    }
+
+    @Test
+    public void getListSnapshot() {
+        GetListSnapshot<String> back = roundTrip(new GetListSnapshot<>("key1", 1000));
+        assertEquals("key1", back.key);
+        assertEquals(1000, back.count);
+    }
+
+    @Test
+    public void getListDelta() {
+        long[] hashes = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE};
+        GetListDelta<String> back = roundTrip(new GetListDelta<>("key1", 99L, 64, hashes, 500));
+        assertEquals("key1", back.key);
+        assertEquals(99L, back.baseVersion);
+        assertEquals(64, back.blockSize);
+        assertArrayEquals(hashes, back.blockHashes);
+        assertEquals(500, back.maxLiterals);
+    }
+
+    @Test
+    public void subscribeData() {
+        SubscribeData<String, Object> back = roundTrip(new SubscribeData<>("key1", subscriber));
+        assertEquals("key1", back.key);
+        assertEquals(subscriber, back.subscriber);
+    }
+
+    @Test
+    public void unsubscribeData() {
+        UnsubscribeData<String, Object> back = roundTrip(new UnsubscribeData<>("key1", subscriber));
+        assertEquals("key1", back.key);
+        assertEquals(subscriber, back.subscriber);
+    }
+
+    @Test
+    public void dataResult() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "value");
+        data.put("count", 3);
+        DataResult<String, Object> back = roundTrip(new DataResult<>("cache1", "key1", 123L, data));
+        assertDataResult(new DataResult<>("cache1", "key1", 123L, data), back);
+    }
+
+    @Test
+    public void failedDataResult() {
+        DataResult<String, Object> back = roundTrip(new DataResult<>(new IllegalStateException("boom"), "cache1", "key1"));
+        assertEquals("cache1", back.cacheName);
+        assertEquals("key1", back.key);
+        assertNull(back.data);
+        assertTrue(back.failed instanceof IllegalStateException);
+        assertEquals("boom", back.failed.getMessage());
+    }
+
+    @Test
+    public void listSnapshotResult() {
+        List<Object> list = Arrays.asList("a", 1, 2L);
+        ListSnapshotResult<String> back = roundTrip(new ListSnapshotResult<>("cache1", "key1", 123L, list, 10));
+        assertEquals("cache1", back.cacheName);
+        assertEquals("key1", back.key);
+        assertEquals(123L, back.expiredTime);
+        assertEquals(list, back.data);
+        assertEquals(10, back.size);
+    }
+
+    @Test
+    public void listDeltaResult() {
+        List<Object> literals = new ArrayList<>(Arrays.asList("x", "y"));
+        int[] ops = {0, -2, 3};
+        ListDeltaResult<String> back = roundTrip(new ListDeltaResult<>("cache1", "key1", 123L, 200, false, ops, literals));
+        assertEquals("key1", back.key);
+        assertEquals(123L, back.expiredTime);
+        assertEquals(200, back.size);
+        assertFalse(back.unchanged);
+        assertArrayEquals(ops, back.ops);
+        assertEquals(literals, back.data);
+
+        ListDeltaResult<String> unchanged = roundTrip(new ListDeltaResult<>("cache1", "key1", 123L, 200, true, null, null));
+        assertTrue(unchanged.unchanged);
+        assertNull(unchanged.ops);
+    }
+
+    @Test
+    public void multiDataResult() {
+        Map<String, DataResult<String, Object>> results = new HashMap<>();
+        results.put("a", new DataResult<>("cache1", "a", 1L, "va"));
+        results.put("b", new DataResult<>(new IllegalArgumentException("missing"), "cache1", "b"));
+        MultiDataResult<String, Object> back = roundTrip(new MultiDataResult<>("cache1", results));
+        assertEquals("cache1", back.cacheName);
+        assertEquals(2, back.results.size());
+        assertDataResult(results.get("a"), back.results.get("a"));
+        assertEquals("missing", back.results.get("b").failed.getMessage());
+    }
+
+    @Test
+    public void dataPush() {
+        DataResult<String, Object> result = new DataResult<>("cache1", "key1", 123L, "value");
+        DataPush<String, Object> back = roundTrip(new DataPush<>(result));
+        assertDataResult(result, back.result);
+    }
+
+    @Test
+    public void timedData() {
+        byte[] bytes = {1, 2, 3};
+        TimedData<Object> back = roundTrip(new TimedData<>(123L, bytes, true));
+        assertEquals(123L, back.time);
+        assertTrue(back.removeOnExpired);
+        assertArrayEquals(bytes, (byte[]) back.data);
+    }
+
+    @Test
+    public void invalidationBatch() {
+        InvalidationBatch<String> back = roundTrip(new InvalidationBatch<>(subscriber, Arrays.asList("a", "b")));
+        assertEquals(subscriber, back.origin);
+        assertEquals(Arrays.asList("a", "b"), back.keys);
+    }
+
+    private static void assertDataResult(DataResult<?, ?> expected, DataResult<?, ?> actual) {
+        assertEquals(expected.cacheName, actual.cacheName);
+        assertEquals(expected.key, actual.key);
+        assertEquals(expected.expiredTime, actual.expiredTime);
+        assertEquals(expected.data, actual.data);
+        assertNull(actual.failed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T msg) {
+        Serializer serializer = SerializationExtension.lookup().get(system).findSerializerFor(msg);
+        assertTrue(msg.getClass().getName() + " is not bound to CacheMessageSerializer",
+            serializer instanceof CacheMessageSerializer);
+        SerializerWithStringManifest s = (SerializerWithStringManifest) serializer;
+        String manifest = s.manifest(msg);
+        try {
+            Object back = s.fromBinary(s.toBinary(msg), manifest);
+            assertSame(msg.getClass(), back.getClass());
+            return (T) back;
+        } catch (java.io.NotSerializableException ex) {
+            throw new AssertionError("decode failed: " + msg.getClass().getName(), ex);
+        }
+    }
+}
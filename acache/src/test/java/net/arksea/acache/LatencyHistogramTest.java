@@ -0,0 +1,73 @@
+package net.arksea.acache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by arksea on 2019/7/5.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.index(v));
+            assertEquals(v, LatencyHistogram.valueOf(v));
+        }
+        assertEquals(0, LatencyHistogram.index(-5));
+    }
+
+    @Test
+    public void valueFallsInsideItsBucket() {
+        int previous = -1;
+        for (long v = 0; v < (1L << 41); v = v < 1000 ? v + 1 : v + v / 37) {
+            int index = LatencyHistogram.index(v);
+            assertTrue("index not monotonic at " + v, index >= previous);
+            previous = index;
+            long upper = LatencyHistogram.valueOf(index);
+            assertTrue(v + " > bucket max " + upper, v <= upper);
+            if (index > 0) {
+                assertTrue(v + " <= previous bucket max", v > LatencyHistogram.valueOf(index - 1));
+            }
+            //对数-线性分桶的相对误差约为1/32
+            assertTrue(v + " -> " + upper, upper - v <= Math.max(0, v / 32));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int i = 1; i < LatencyHistogram.index(Long.MAX_VALUE); i++) {
+            long lower = LatencyHistogram.valueOf(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.index(lower));
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void hugeValuesAreClamped() {
+        int last = LatencyHistogram.index(Long.MAX_VALUE);
+        assertEquals(last, LatencyHistogram.index(1L << 41));
+        assertEquals((1L << 41) - 1, LatencyHistogram.valueOf(last));
+    }
+
+    @Test
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshotAndReset().percentile(0.99));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(100, snapshot.count);
+        assertNear(50000, snapshot.percentile(0.5));
+        assertNear(99000, snapshot.percentile(0.99));
+        assertNear(100000, snapshot.percentile(1));
+        assertEquals(0, histogram.snapshotAndReset().count);
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(expected + " != " + actual, actual >= expected && actual - expected <= expected / 32);
+    }
+}
@@ -0,0 +1,127 @@
+package net.arksea.acache;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * ListDelta.diff与apply的往返测试：按差异组装的新列表必须与服务端的列表完全一致
+ * Created by arksea on 2019/7/5.
+ */
+public class ListDeltaTest {
+    private static final int BLOCK_SIZE = 64;
+
+    @Test
+    public void roundTripRandomEdits() {
+        Random random = new Random(1);
+        for (int t = 0; t < 200; t++) {
+            List<String> base = new ArrayList<>();
+            int n = 500 + random.nextInt(5000);
+            for (int i = 0; i < n; i++) {
+                base.add("e" + random.nextInt(100000));
+            }
+            List<String> current = new ArrayList<>(base);
+            int edits = random.nextInt(5);
+            for (int e = 0; e < edits; e++) {
+                int pos = random.nextInt(current.size() + 1);
+                switch (random.nextInt(4)) {
+                    case 0: //头部插入
+                        for (int i = random.nextInt(30); i > 0; i--) {
+                            current.add(0, "n" + random.nextInt());
+                        }
+                        break;
+                    case 1:
+                        if (pos < current.size()) {
+                            current.set(pos, "x" + random.nextInt());
+                        }
+                        break;
+                    case 2:
+                        if (pos < current.size()) {
+                            current.remove(pos);
+                        }
+                        break;
+                    default:
+                        current.add("a" + random.nextInt());
+                }
+            }
+            assertEquals("t=" + t, current, roundTrip(base, current, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void unchangedListHasNoLiterals() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < BLOCK_SIZE * 16; i++) { //整块，不留尾部的新元素
+            list.add(i);
+        }
+        ChunkedList<Integer> base = ChunkedList.copyOf(list);
+        ListDelta.Diff diff = ListDelta.diff(new ArrayList<>(list), base.blockHashes(BLOCK_SIZE), BLOCK_SIZE, 0);
+        assertNotNull(diff);
+        assertEquals(0, diff.literals.size());
+        assertEquals(list, ListDelta.apply(base, BLOCK_SIZE, diff.ops, diff.literals));
+    }
+
+    //实体只按ID实现hashCode，其他字段变化也必须传到本地
+    @Test
+    public void detectsChangesNotVisibleInHashCode() {
+        List<Entity> base = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            base.add(new Entity(i, "name" + i));
+        }
+        List<Entity> current = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            current.add(new Entity(i, i == 500 ? "changed" : "name" + i));
+        }
+        List<Entity> result = roundTrip(base, current, Integer.MAX_VALUE);
+        assertEquals(current, result);
+        assertEquals("changed", result.get(500).name);
+    }
+
+    @Test
+    public void tooManyLiteralsReturnsNull() {
+        assertNull(ListDelta.diff(Arrays.asList("a", "b"), new long[0], BLOCK_SIZE, 1));
+    }
+
+    @Test
+    public void emptyList() {
+        ListDelta.Diff diff = ListDelta.diff(Collections.emptyList(), new long[0], BLOCK_SIZE, 1);
+        assertNotNull(diff);
+        assertEquals(0, diff.ops.length);
+        assertEquals(0, ListDelta.apply(Collections.emptyList(), BLOCK_SIZE, diff.ops, diff.literals).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> roundTrip(List<E> base, List<E> current, int maxLiterals) {
+        ChunkedList<E> local = ChunkedList.copyOf(base);
+        ListDelta.Diff diff = ListDelta.diff(ChunkedList.copyOf(current), local.blockHashes(BLOCK_SIZE), BLOCK_SIZE, maxLiterals);
+        assertNotNull(diff);
+        return ListDelta.apply(local, BLOCK_SIZE, diff.ops, diff.literals);
+    }
+
+    private static final class Entity implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int id;
+        final String name;
+        Entity(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+        @Override
+        public int hashCode() {
+            return id;
+        }
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entity && ((Entity) o).id == id && ((Entity) o).name.equals(name);
+        }
+    }
+}
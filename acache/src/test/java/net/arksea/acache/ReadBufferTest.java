@@ -0,0 +1,93 @@
+package net.arksea.acache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by arksea on 2019/7/6.
+ */
+public class ReadBufferTest {
+
+    @Test
+    public void drainsInOrder() {
+        ReadBuffer<Integer> buffer = new ReadBuffer<>();
+        assertTrue(buffer.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+        buffer.drain(drained::add);
+        assertEquals(100, drained.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), drained.get(i));
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void dropsWhenFull() {
+        ReadBuffer<Integer> buffer = new ReadBuffer<>();
+        for (int i = 0; i < 5000; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+        buffer.drain(drained::add);
+        assertEquals(1024, drained.size());
+        assertEquals(Integer.valueOf(1023), drained.get(1023));
+        //取出后可以继续写入
+        buffer.offer(-1);
+        drained.clear();
+        buffer.drain(drained::add);
+        assertEquals(1, drained.size());
+    }
+
+    @Test
+    public void concurrentWritersNeverDuplicate() throws Exception {
+        ReadBuffer<Integer> buffer = new ReadBuffer<>();
+        int threads = 4;
+        int perThread = 100_000;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        buffer.offer(base + i);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        Set<Integer> seen = new HashSet<>();
+        int[] duplicates = new int[1];
+        start.countDown();
+        while (done.getCount() > 0) {
+            buffer.drain(k -> {
+                if (!seen.add(k)) {
+                    duplicates[0]++;
+                }
+            });
+        }
+        buffer.drain(k -> {
+            if (!seen.add(k)) {
+                duplicates[0]++;
+            }
+        });
+        assertEquals(0, duplicates[0]);
+        assertTrue(buffer.isEmpty());
+        assertTrue(seen.size() > 0 && seen.size() <= threads * perThread);
+    }
+}
@@ -0,0 +1,118 @@
+package net.arksea.acache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by arksea on 2019/7/5.
+ */
+public class TimerWheelTest {
+    private static final long START = 1_562_284_800_000L;
+
+    @Test
+    public void expiresOnlyDueKeys() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 500);
+        wheel.schedule("b", START + 5_000);
+        wheel.schedule("c", START + 10 * 60_000);
+        List<String> expired = new ArrayList<>();
+        TimerWheel.Expirer<String> expirer = (key, now) -> {
+            expired.add(key);
+            return Long.MAX_VALUE;
+        };
+        wheel.advance(START + 2_000, expirer);
+        assertEquals(listOf("a"), expired);
+        wheel.advance(START + 6_000, expirer);
+        assertEquals(listOf("a", "b"), expired);
+        wheel.advance(START + 9 * 60_000, expirer);
+        assertEquals(2, expired.size());
+        assertEquals(1, wheel.size());
+        wheel.advance(START + 11 * 60_000, expirer);
+        assertEquals(listOf("a", "b", "c"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void rescheduleAndRemove() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 1_000);
+        wheel.schedule("a", START + 100_000);
+        wheel.schedule("b", START + 1_000);
+        wheel.remove("b");
+        wheel.schedule("c", START + 1_000);
+        wheel.schedule("c", Long.MAX_VALUE);
+        wheel.scheduleIfEarlier("a", START + 200_000);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START + 50_000, (key, now) -> {
+            expired.add(key);
+            return Long.MAX_VALUE;
+        });
+        assertTrue(expired.isEmpty());
+        wheel.scheduleIfEarlier("a", START + 60_000);
+        wheel.advance(START + 61_000, (key, now) -> {
+            expired.add(key);
+            return Long.MAX_VALUE;
+        });
+        assertEquals(listOf("a"), expired);
+    }
+
+    @Test
+    public void expirerCanReschedule() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 1_000);
+        int[] count = new int[1];
+        TimerWheel.Expirer<String> expirer = (key, now) -> {
+            count[0]++;
+            return now + 1_000;
+        };
+        for (long t = START; t <= START + 10_500; t += 100) {
+            wheel.advance(t, expirer);
+        }
+        assertTrue("count=" + count[0], count[0] >= 9 && count[0] <= 10);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    public void randomDeadlinesNeverFireEarlyOrLate() {
+        Random random = new Random(7);
+        TimerWheel<Integer> wheel = new TimerWheel<>(START);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            //覆盖各层：毫秒到数天
+            long deadline = START + (long) Math.pow(10, random.nextDouble() * 9);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+        long step = 1_000;
+        long[] now = {START};
+        TimerWheel.Expirer<Integer> expirer = (key, time) -> {
+            long deadline = deadlines.remove(key);
+            assertTrue("fired early: " + key, deadline <= time);
+            //推进间隔是1秒，到期后至多延迟一个间隔加最精细层的一个桶
+            assertTrue("fired late: " + key, time - deadline <= step + 1024);
+            return Long.MAX_VALUE;
+        };
+        while (!deadlines.isEmpty()) {
+            now[0] += step;
+            wheel.advance(now[0], expirer);
+            assertTrue(now[0] < START + 2_000_000_000L);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    private static List<String> listOf(String... keys) {
+        List<String> list = new ArrayList<>();
+        for (String k : keys) {
+            list.add(k);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,100 @@
+package net.arksea.acache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by arksea on 2019/7/5.
+ */
+public class TinyLfuPolicyTest {
+
+    @Test
+    public void neverExceedsMaximum() {
+        TinyLfuPolicy<Integer> policy = new TinyLfuPolicy<>(100, 100);
+        Set<Integer> resident = new HashSet<>();
+        List<Integer> evicted = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int key = i % 1000;
+            if (resident.contains(key)) {
+                policy.onAccess(key);
+                continue;
+            }
+            policy.onPut(key, 1, evicted);
+            resident.add(key);
+            resident.removeAll(evicted);
+            evicted.clear();
+            assertTrue(policy.weightedSize() <= 100);
+            assertEquals(resident.size(), policy.weightedSize());
+        }
+    }
+
+    @Test
+    public void frequentKeysSurviveScan() {
+        TinyLfuPolicy<Integer> policy = new TinyLfuPolicy<>(100, 100);
+        List<Integer> evicted = new ArrayList<>();
+        Set<Integer> resident = new HashSet<>();
+        for (int hot = 0; hot < 50; hot++) {
+            policy.onPut(hot, 1, evicted);
+            resident.add(hot);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                policy.onAccess(hot);
+            }
+        }
+        //扫描大量只访问一次的Key，期间热点仍在被访问，不应被冲掉
+        for (int cold = 1000; cold < 11_000; cold++) {
+            policy.onPut(cold, 1, evicted);
+            resident.add(cold);
+            if (cold % 10 == 0) {
+                policy.onAccess((cold / 10) % 50);
+            }
+        }
+        resident.removeAll(evicted);
+        for (int hot = 0; hot < 50; hot++) {
+            assertTrue("hot key evicted: " + hot, resident.contains(hot));
+        }
+    }
+
+    @Test
+    public void weightedEviction() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(1000, 16);
+        List<String> evicted = new ArrayList<>();
+        policy.onPut("a", 400, evicted);
+        policy.onPut("b", 400, evicted);
+        assertTrue(evicted.isEmpty());
+        assertEquals(800, policy.weightedSize());
+        policy.onPut("a", 100, evicted);
+        assertEquals(500, policy.weightedSize());
+        policy.onPut("c", 600, evicted);
+        assertFalse(evicted.isEmpty());
+        assertTrue(policy.weightedSize() <= 1000);
+        policy.onRemove("b");
+        policy.onRemove("missing");
+        long remaining = 0;
+        for (String key : new String[]{"a", "c"}) {
+            if (!evicted.contains(key)) {
+                remaining += key.equals("a") ? 100 : 600;
+            }
+        }
+        assertEquals(remaining, policy.weightedSize());
+    }
+
+    @Test
+    public void oversizedEntryIsRejected() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(100, 16);
+        List<String> evicted = new ArrayList<>();
+        policy.onPut("small", 10, evicted);
+        policy.onPut("huge", 1000, evicted);
+        assertTrue(evicted.contains("huge"));
+        assertTrue(policy.weightedSize() <= 100);
+    }
+}